@@ -0,0 +1,125 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.jclouds;
+
+import com.google.common.base.Predicate;
+import com.hazelcast.spi.discovery.DiscoveryNode;
+import org.jclouds.compute.domain.ComputeMetadata;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures one discovery poll against a synthetic in-memory fleet: the full
+ * {@link JCloudsDiscoveryStrategy#discoverNodes()}, the listing and filtering in
+ * {@link ComputeServiceBuilder#getFilteredNodes()}, building the node filter and applying it to every node.
+ * Run with {@code -prof gc} to see the allocation per poll.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DiscoveryBenchmark {
+
+    @Param({"10", "100", "1000", "10000", "100000"})
+    private int fleetSize;
+
+    @Param({"3"})
+    private int regions;
+
+    @Param({"3"})
+    private int zonesPerRegion;
+
+    /**
+     * Fraction of the fleet carrying the cluster group and tag.
+     */
+    @Param({"0.1"})
+    private double memberRatio;
+
+    /**
+     * Number of zones of the first region to filter on, 0 for no zone filter.
+     */
+    @Param({"2"})
+    private int zoneFilter;
+
+    private SyntheticFleet fleet;
+    private ComputeServiceBuilder builder;
+    private JCloudsDiscoveryStrategy strategy;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        fleet = new SyntheticFleet(fleetSize, regions, zonesPerRegion, memberRatio);
+        Map<String, Comparable> properties = new HashMap<String, Comparable>();
+        properties.put("group", SyntheticFleet.GROUP);
+        properties.put("tag-keys", SyntheticFleet.TAG_KEY);
+        properties.put("tag-values", SyntheticFleet.TAG_VALUE);
+        if (zoneFilter > 0) {
+            properties.put("zones", SyntheticFleet.zones(zoneFilter));
+        }
+        builder = new ComputeServiceBuilder(properties);
+        builder.buildRegionZonesConfig();
+        builder.buildTagConfig();
+        builder.buildNodeFilter();
+        builder.setComputeService(fleet.newComputeService());
+        strategy = new JCloudsDiscoveryStrategy(builder, properties);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        strategy.destroy();
+    }
+
+    @Benchmark
+    public Iterable<DiscoveryNode> discoverNodes() {
+        return strategy.discoverNodes();
+    }
+
+    @Benchmark
+    public Iterable<? extends NodeMetadata> getFilteredNodes() {
+        return builder.getFilteredNodes();
+    }
+
+    @Benchmark
+    public Predicate<ComputeMetadata> buildNodeFilter() {
+        return builder.buildNodeFilter();
+    }
+
+    @Benchmark
+    public void applyNodeFilter(Blackhole blackhole) {
+        Predicate<ComputeMetadata> filter = builder.buildNodeFilter();
+        for (NodeMetadata node : fleet.getNodes()) {
+            blackhole.consume(filter.apply(node));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.jclouds;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares parsing the IAM role credentials document with {@link JsonFieldReader} against the per-line
+ * regular expressions used before.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IamRoleParserBenchmark {
+
+    private static final String DOCUMENT = "{\n"
+            + "  \"Code\" : \"Success\",\n"
+            + "  \"LastUpdated\" : \"2015-09-06T21:17:26Z\",\n"
+            + "  \"Type\" : \"AWS-HMAC\",\n"
+            + "  \"AccessKeyId\" : \"ASIAIEXAMPLEOXYDA\",\n"
+            + "  \"SecretAccessKey\" : \"hOCVge3EXAMPLExSJ+B\",\n"
+            + "  \"Token\" : \"AQoDYXdzEE4EXAMPLE2UGAFshkTsyw7gojLdiEXAMPLE+1SfSRTfLR\",\n"
+            + "  \"Expiration\" : \"2015-09-07T03:19:56Z\"\n}";
+
+    private final IAMRoleCredentialSupplierBuilder builder = new IAMRoleCredentialSupplierBuilder();
+
+    @Benchmark
+    public Map<String, String> streaming() throws IOException {
+        return builder.parseIamRole(new BufferedReader(new StringReader(DOCUMENT)));
+    }
+
+    @Benchmark
+    public Map<String, String> regex() throws IOException {
+        return parseWithRegex(new BufferedReader(new StringReader(DOCUMENT)));
+    }
+
+    /**
+     * The former implementation of {@link IAMRoleCredentialSupplierBuilder#parseIamRole(BufferedReader)}.
+     */
+    private static Map<String, String> parseWithRegex(BufferedReader reader) throws IOException {
+        Map<String, String> map = new HashMap<String, String>();
+        Pattern keyPattern = Pattern.compile("\"(.*?)\" : ");
+        Pattern valuePattern = Pattern.compile(" : \"(.*?)\",?\\s*$");
+        String line;
+        for (line = reader.readLine(); line != null; line = reader.readLine()) {
+            if (line.contains(":")) {
+                Matcher keyMatcher = keyPattern.matcher(line);
+                Matcher valueMatcher = valuePattern.matcher(line);
+                if (keyMatcher.find() && valueMatcher.find()) {
+                    map.put(keyMatcher.group(1), valueMatcher.group(1));
+                }
+            }
+        }
+        return map;
+    }
+}
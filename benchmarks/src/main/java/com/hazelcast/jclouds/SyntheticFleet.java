@@ -0,0 +1,168 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.jclouds;
+
+import com.google.common.base.Predicate;
+import org.jclouds.compute.ComputeService;
+import org.jclouds.compute.ComputeServiceContext;
+import org.jclouds.compute.domain.ComputeMetadata;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.NodeMetadataBuilder;
+import org.jclouds.domain.Location;
+import org.jclouds.domain.LocationBuilder;
+import org.jclouds.domain.LocationScope;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * In-memory fleet of nodes served through a {@link ComputeService} proxy. The nodes are spread evenly over
+ * the given number of regions and zones, a configurable fraction of them carries the cluster tag and group.
+ * Node addresses are IP literals, so no name resolution happens in the benchmarks.
+ */
+final class SyntheticFleet {
+
+    static final String GROUP = "hazelcast";
+    static final String TAG_KEY = "cluster";
+    static final String TAG_VALUE = "benchmark";
+
+    private static final int OCTET = 256;
+    private static final long SEED = 42;
+
+    private static final ComputeServiceContext NO_OP_CONTEXT = (ComputeServiceContext) Proxy.newProxyInstance(
+            ComputeServiceContext.class.getClassLoader(), new Class[]{ComputeServiceContext.class},
+            new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    return null;
+                }
+            });
+
+    private final Set<NodeMetadata> nodes;
+    private final Map<String, NodeMetadata> nodesById;
+
+    SyntheticFleet(int size, int regions, int zonesPerRegion, double memberRatio) {
+        List<Location> zones = new ArrayList<Location>();
+        for (int r = 0; r < regions; r++) {
+            Location region = new LocationBuilder().scope(LocationScope.REGION).id("region-" + r)
+                    .description("region-" + r).build();
+            for (int z = 0; z < zonesPerRegion; z++) {
+                zones.add(new LocationBuilder().scope(LocationScope.ZONE).id("region-" + r + "-zone-" + z)
+                        .description("zone").parent(region).build());
+            }
+        }
+        Random random = new Random(SEED);
+        Set<NodeMetadata> fleet = new LinkedHashSet<NodeMetadata>(size);
+        Map<String, NodeMetadata> byId = new HashMap<String, NodeMetadata>(size);
+        for (int i = 0; i < size; i++) {
+            boolean member = random.nextDouble() < memberRatio;
+            NodeMetadata node = newNode(i, zones.get(i % zones.size()), member);
+            fleet.add(node);
+            byId.put(node.getId(), node);
+        }
+        this.nodes = Collections.unmodifiableSet(fleet);
+        this.nodesById = byId;
+    }
+
+    /**
+     * @return the comma separated ids of the first {@code count} zones of the first region
+     */
+    static String zones(int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int z = 0; z < count; z++) {
+            sb.append(z == 0 ? "" : ",").append("region-0-zone-").append(z);
+        }
+        return sb.toString();
+    }
+
+    Set<NodeMetadata> getNodes() {
+        return nodes;
+    }
+
+    ComputeService newComputeService() {
+        return (ComputeService) Proxy.newProxyInstance(ComputeService.class.getClassLoader(),
+                new Class[]{ComputeService.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        return answer(method.getName(), args);
+                    }
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object answer(String method, Object[] args) {
+        if ("listNodes".equals(method)) {
+            return nodes;
+        }
+        if ("listNodesDetailsMatching".equals(method)) {
+            return filter((Predicate<ComputeMetadata>) args[0]);
+        }
+        if ("listNodesByIds".equals(method)) {
+            Set<NodeMetadata> result = new HashSet<NodeMetadata>();
+            for (String id : (Iterable<String>) args[0]) {
+                result.add(nodesById.get(id));
+            }
+            return result;
+        }
+        if ("getContext".equals(method)) {
+            // closed when the strategy is destroyed
+            return NO_OP_CONTEXT;
+        }
+        throw new UnsupportedOperationException(method);
+    }
+
+    private Set<NodeMetadata> filter(Predicate<ComputeMetadata> filter) {
+        Set<NodeMetadata> result = new HashSet<NodeMetadata>();
+        for (NodeMetadata node : nodes) {
+            if (filter == null || filter.apply(node)) {
+                result.add(node);
+            }
+        }
+        return result;
+    }
+
+    private static NodeMetadata newNode(int index, Location zone, boolean member) {
+        Map<String, String> tags = new HashMap<String, String>();
+        tags.put("owner", "team-" + index % 7);
+        if (member) {
+            tags.put(TAG_KEY, TAG_VALUE);
+        }
+        return new NodeMetadataBuilder()
+                .id("i-" + index)
+                .group(member ? GROUP : "other")
+                .hostname("host-" + index)
+                .location(zone)
+                .userMetadata(tags)
+                .privateAddresses(Collections.singleton(address(10, index)))
+                .publicAddresses(Collections.singleton(address(54, index)))
+                .status(NodeMetadata.Status.RUNNING)
+                .build();
+    }
+
+    private static String address(int firstOctet, int index) {
+        return firstOctet + "." + (index / OCTET / OCTET % OCTET) + "." + (index / OCTET % OCTET) + "." + (index % OCTET);
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.jclouds;
+
+import com.google.common.net.InetAddresses;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+import com.hazelcast.util.Clock;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maps the addresses reported by the cloud provider to {@link InetAddress}es. IP literals are parsed
+ * without a lookup, host names are resolved in parallel and kept in a bounded cache for a limited time.
+ * Addresses which cannot be resolved in time are left out of the result instead of failing the discovery.
+ */
+final class AddressMapper {
+
+    private static final ILogger LOGGER = Logger.getLogger(AddressMapper.class);
+    private static final long IDLE_THREAD_KEEP_ALIVE_SECONDS = 60;
+
+    private final ConcurrentMap<String, CachedAddress> cache = new ConcurrentHashMap<String, CachedAddress>();
+    private final ThreadPoolExecutor executor;
+    private final long ttlMillis;
+    private final long timeoutMillis;
+    private final int maxCacheSize;
+
+    AddressMapper(int threads, long ttlMillis, long timeoutMillis, int maxCacheSize) {
+        this.ttlMillis = ttlMillis;
+        this.timeoutMillis = timeoutMillis;
+        this.maxCacheSize = maxCacheSize;
+        this.executor = new ThreadPoolExecutor(threads, threads, IDLE_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory("hz.jclouds.address-resolver"));
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Maps the given addresses. Unresolvable addresses are missing from the returned map.
+     *
+     * @param addresses the IP literals or host names
+     * @return the mapped addresses keyed by the given address
+     */
+    Map<String, InetAddress> map(Collection<String> addresses) {
+        Map<String, InetAddress> mapped = new HashMap<String, InetAddress>();
+        Set<String> hostNames = new LinkedHashSet<String>();
+        long now = Clock.currentTimeMillis();
+        for (String address : addresses) {
+            if (address == null || mapped.containsKey(address)) {
+                continue;
+            }
+            if (InetAddresses.isInetAddress(address)) {
+                mapped.put(address, InetAddresses.forString(address));
+                continue;
+            }
+            CachedAddress cached = cache.get(address);
+            if (cached != null && cached.expiresAt > now) {
+                if (cached.address != null) {
+                    mapped.put(address, cached.address);
+                }
+            } else {
+                hostNames.add(address);
+            }
+        }
+        if (!hostNames.isEmpty()) {
+            resolve(hostNames, mapped);
+        }
+        return mapped;
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void resolve(Set<String> hostNames, Map<String, InetAddress> mapped) {
+        List<Callable<InetAddress>> lookups = new ArrayList<Callable<InetAddress>>(hostNames.size());
+        for (final String hostName : hostNames) {
+            lookups.add(new Callable<InetAddress>() {
+                @Override
+                public InetAddress call() throws UnknownHostException {
+                    return InetAddress.getByName(hostName);
+                }
+            });
+        }
+        List<Future<InetAddress>> results;
+        try {
+            results = executor.invokeAll(lookups, timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        Iterator<String> hostNameIterator = hostNames.iterator();
+        for (Future<InetAddress> result : results) {
+            String hostName = hostNameIterator.next();
+            InetAddress address = getResult(hostName, result);
+            if (address != null) {
+                mapped.put(hostName, address);
+            }
+            // unresolvable names are cached as well so a broken name does not stall every discovery
+            if (!result.isCancelled()) {
+                cache(hostName, address);
+            }
+        }
+    }
+
+    private InetAddress getResult(String hostName, Future<InetAddress> result) {
+        if (result.isCancelled()) {
+            LOGGER.warning("Address '" + hostName + "' could not be resolved in " + timeoutMillis + " ms");
+            return null;
+        }
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            LOGGER.warning("Address '" + hostName + "' could not be resolved");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    private void cache(String hostName, InetAddress address) {
+        if (cache.size() >= maxCacheSize) {
+            evictExpired();
+            if (cache.size() >= maxCacheSize) {
+                return;
+            }
+        }
+        cache.put(hostName, new CachedAddress(address, Clock.currentTimeMillis() + ttlMillis));
+    }
+
+    private void evictExpired() {
+        long now = Clock.currentTimeMillis();
+        for (Iterator<CachedAddress> iterator = cache.values().iterator(); iterator.hasNext();) {
+            if (iterator.next().expiresAt <= now) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Resolved address, {@code null} if the name could not be resolved, and its expiry time.
+     */
+    private static final class CachedAddress {
+
+        private final InetAddress address;
+        private final long expiresAt;
+
+        CachedAddress(InetAddress address, long expiresAt) {
+            this.address = address;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
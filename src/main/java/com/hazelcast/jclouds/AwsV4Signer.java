@@ -0,0 +1,125 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.jclouds;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.BaseEncoding;
+import org.jclouds.aws.domain.SessionCredentials;
+import org.jclouds.domain.Credentials;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Signs form encoded {@code POST} requests to an AWS query API with Signature Version 4.
+ * Only the content type, host and date headers are signed, plus the session token of temporary credentials.
+ */
+final class AwsV4Signer {
+
+    static final String CONTENT_TYPE = "application/x-www-form-urlencoded; charset=utf-8";
+
+    private static final String ALGORITHM = "AWS4-HMAC-SHA256";
+    private static final String HMAC = "HmacSHA256";
+    private static final BaseEncoding HEX = BaseEncoding.base16().lowerCase();
+
+    private final String service;
+
+    AwsV4Signer(String service) {
+        this.service = service;
+    }
+
+    /**
+     * Builds the headers authenticating the request.
+     *
+     * @param host        the host the request is sent to
+     * @param path        the path the request is sent to, empty for the root path
+     * @param region      the region the request is sent to
+     * @param payload     the form encoded request body
+     * @param credentials the access key and secret key, optionally with a session token
+     * @param timeMillis  the time of the request
+     * @return the headers to add to the request, including the signed ones
+     */
+    Map<String, String> sign(String host, String path, String region, String payload, Credentials credentials,
+                             long timeMillis) {
+        String timestamp = format("yyyyMMdd'T'HHmmss'Z'", timeMillis);
+        String date = timestamp.substring(0, "yyyyMMdd".length());
+        String sessionToken = credentials instanceof SessionCredentials
+                ? ((SessionCredentials) credentials).getSessionToken() : null;
+
+        StringBuilder canonicalHeaders = new StringBuilder()
+                .append("content-type:").append(CONTENT_TYPE).append('\n')
+                .append("host:").append(host).append('\n')
+                .append("x-amz-date:").append(timestamp).append('\n');
+        String signedHeaders = "content-type;host;x-amz-date";
+        if (sessionToken != null) {
+            canonicalHeaders.append("x-amz-security-token:").append(sessionToken).append('\n');
+            signedHeaders += ";x-amz-security-token";
+        }
+        String canonicalUri = path.isEmpty() ? "/" : path;
+        String canonicalRequest = "POST\n" + canonicalUri + "\n\n" + canonicalHeaders + '\n' + signedHeaders + '\n'
+                + sha256Hex(payload);
+        String scope = date + '/' + region + '/' + service + "/aws4_request";
+        String stringToSign = ALGORITHM + '\n' + timestamp + '\n' + scope + '\n' + sha256Hex(canonicalRequest);
+
+        byte[] key = hmac(("AWS4" + credentials.credential).getBytes(Charsets.UTF_8), date);
+        key = hmac(key, region);
+        key = hmac(key, service);
+        key = hmac(key, "aws4_request");
+        String signature = HEX.encode(hmac(key, stringToSign));
+
+        Map<String, String> headers = new LinkedHashMap<String, String>();
+        headers.put("Content-Type", CONTENT_TYPE);
+        headers.put("X-Amz-Date", timestamp);
+        if (sessionToken != null) {
+            headers.put("X-Amz-Security-Token", sessionToken);
+        }
+        headers.put("Authorization", ALGORITHM + " Credential=" + credentials.identity + '/' + scope
+                + ", SignedHeaders=" + signedHeaders + ", Signature=" + signature);
+        return headers;
+    }
+
+    private static String format(String pattern, long timeMillis) {
+        SimpleDateFormat format = new SimpleDateFormat(pattern, Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format.format(new Date(timeMillis));
+    }
+
+    private static String sha256Hex(String text) {
+        try {
+            return HEX.encode(MessageDigest.getInstance("SHA-256").digest(text.getBytes(Charsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    private static byte[] hmac(byte[] key, String data) {
+        try {
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(new SecretKeySpec(key, HMAC));
+            return mac.doFinal(data.getBytes(Charsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not supported", e);
+        }
+    }
+}
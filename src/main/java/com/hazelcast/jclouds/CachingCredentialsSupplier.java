@@ -0,0 +1,143 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.jclouds;
+
+import com.google.common.base.Supplier;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+import com.hazelcast.util.Clock;
+import org.jclouds.aws.domain.SessionCredentials;
+import org.jclouds.domain.Credentials;
+
+import java.util.Date;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caches temporary session credentials until shortly before they expire. Within the refresh window the
+ * cached credentials are still served while new ones are loaded in the background; expired credentials
+ * are reloaded synchronously. The refresh window is at most half of the lifetime of the loaded credentials,
+ * so credentials shorter lived than the window are not refreshed on every call. Credentials without an
+ * expiration are kept for a fixed time.
+ */
+final class CachingCredentialsSupplier implements Supplier<Credentials> {
+
+    private static final ILogger LOGGER = Logger.getLogger(CachingCredentialsSupplier.class);
+    private static final long IDLE_THREAD_KEEP_ALIVE_SECONDS = 60;
+
+    private final Supplier<SessionCredentials> loader;
+    private final long refreshAheadMillis;
+    private final long defaultTtlMillis;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final ThreadPoolExecutor executor;
+
+    private volatile CachedCredentials cached;
+
+    CachingCredentialsSupplier(Supplier<SessionCredentials> loader, long refreshAheadMillis, long defaultTtlMillis) {
+        this.loader = loader;
+        this.refreshAheadMillis = refreshAheadMillis;
+        this.defaultTtlMillis = defaultTtlMillis;
+        this.executor = new ThreadPoolExecutor(1, 1, IDLE_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory("hz.jclouds.credentials-refresh"));
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Creates a supplier of the credentials of the IAM role attached to the instance.
+     *
+     * @param roleName           the name of the IAM role
+     * @param refreshAheadMillis how long before the expiration the credentials are refreshed
+     * @param defaultTtlMillis   how long credentials without an expiration are kept
+     * @return the caching supplier
+     */
+    static CachingCredentialsSupplier forIamRole(final String roleName, long refreshAheadMillis, long defaultTtlMillis) {
+        return new CachingCredentialsSupplier(new Supplier<SessionCredentials>() {
+            @Override
+            public SessionCredentials get() {
+                return new IAMRoleCredentialSupplierBuilder().withRoleName(roleName).build();
+            }
+        }, refreshAheadMillis, defaultTtlMillis);
+    }
+
+    @Override
+    public Credentials get() {
+        CachedCredentials current = cached;
+        long now = Clock.currentTimeMillis();
+        if (current == null || now >= current.expiresAt) {
+            return loadIfStill(current);
+        }
+        if (now >= current.refreshAt) {
+            scheduleRefresh();
+        }
+        return current.credentials;
+    }
+
+    private synchronized Credentials loadIfStill(CachedCredentials expired) {
+        CachedCredentials current = cached;
+        if (current != expired) {
+            // another thread loaded meanwhile
+            return current.credentials;
+        }
+        return load().credentials;
+    }
+
+    private synchronized CachedCredentials load() {
+        SessionCredentials credentials = loader.get();
+        Date expiration = credentials.getExpiration().orNull();
+        long now = Clock.currentTimeMillis();
+        long expiresAt = expiration != null ? expiration.getTime() : now + defaultTtlMillis;
+        long refreshAt = expiresAt - Math.min(refreshAheadMillis, Math.max(0, expiresAt - now) / 2);
+        CachedCredentials loaded = new CachedCredentials(credentials, expiresAt, refreshAt);
+        cached = loaded;
+        return loaded;
+    }
+
+    private void scheduleRefresh() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    load();
+                } catch (RuntimeException e) {
+                    LOGGER.warning("Failed to refresh IAM role credentials, serving the cached ones. Cause: " + e.getMessage());
+                } finally {
+                    refreshing.set(false);
+                }
+            }
+        });
+    }
+
+    /**
+     * Credentials, the time they expire and the time they are refreshed in the background.
+     */
+    private static final class CachedCredentials {
+
+        private final SessionCredentials credentials;
+        private final long expiresAt;
+        private final long refreshAt;
+
+        CachedCredentials(SessionCredentials credentials, long expiresAt, long refreshAt) {
+            this.credentials = credentials;
+            this.expiresAt = expiresAt;
+            this.refreshAt = refreshAt;
+        }
+    }
+}
@@ -18,38 +18,41 @@ package com.hazelcast.jclouds;
 import com.google.common.base.Charsets;
 import com.google.common.base.Predicate;
 import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.io.Files;
+import com.google.inject.Module;
 import com.hazelcast.config.InvalidConfigurationException;
 import com.hazelcast.config.NetworkConfig;
 import com.hazelcast.config.properties.PropertyDefinition;
 import com.hazelcast.jclouds.logging.HazelcastLoggingModule;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.logging.Logger;
-import org.jclouds.Constants;
 import org.jclouds.ContextBuilder;
 import org.jclouds.compute.ComputeService;
 import org.jclouds.compute.ComputeServiceContext;
 import org.jclouds.compute.domain.ComputeMetadata;
 import org.jclouds.compute.domain.NodeMetadata;
 import org.jclouds.domain.Credentials;
-import org.jclouds.domain.Location;
-import org.jclouds.domain.LocationScope;
-import org.jclouds.googlecloud.GoogleCredentialsFromJson;
 import org.jclouds.location.reference.LocationConstants;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.StringReader;
 import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.hazelcast.util.Preconditions.checkNotNull;
 import static com.hazelcast.util.Preconditions.isNotNull;
@@ -58,19 +61,31 @@ import static com.hazelcast.util.Preconditions.isNotNull;
  * ComputeServiceBuilder is the responsible class for building jclouds compute service provider.
  * Also parses config and applies necessary filters on cluster nodes.
  */
+@SuppressWarnings({"checkstyle:classdataabstractioncoupling", "checkstyle:methodcount"})
 public class ComputeServiceBuilder {
 
     private static final String GOOGLE_COMPUTE_ENGINE = "google-compute-engine";
     private static final String AWS_EC2 = "aws-ec2";
-    private static final String JCLOUD_CONNECTION_TIMEOUT = "10000";
+    private static final String JCLOUDS_ENGINE = "jclouds";
+    private static final String DIRECT_ENGINE = "direct";
+    private static final String GOOGLE_PRIVATE_KEY_FIELD = "private_key";
+    private static final int DEFAULT_FAN_OUT_TIMEOUT_SECONDS = 30;
+    private static final int MILLIS_PER_SECOND = 1000;
+    private static final long CREDENTIALS_REFRESH_AHEAD_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final long CREDENTIALS_DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
     private static final ILogger LOGGER = Logger.getLogger(ComputeServiceBuilder.class);
 
     private final Map<String, Comparable> properties;
+    private final LocationResolver locationResolver = new LocationResolver();
+    private final List<ComputeServiceContextPool.Lease> leases = new ArrayList<ComputeServiceContextPool.Lease>();
     private Set<String> regionsSet = new LinkedHashSet<String>();
     private Set<String> zonesSet = new LinkedHashSet<String>();
     private List<AbstractMap.SimpleImmutableEntry> tagPairs = new ArrayList<AbstractMap.SimpleImmutableEntry>();
     private Predicate<ComputeMetadata> nodesFilter;
     private ComputeService computeService;
+    private LocationFanOut locationFanOut;
+    private NodeLister nodeLister = NodeLister.CLIENT_SIDE;
+    private DiscoveryMetrics metrics = new DiscoveryMetrics();
 
     /**
      * Instantiates a new Compute service builder.
@@ -105,24 +120,54 @@ public class ComputeServiceBuilder {
         this.computeService = computeService;
     }
 
+    NodeLister getNodeLister() {
+        return nodeLister;
+    }
+
+    /**
+     * Injects the strategy used to list the nodes of a ComputeService.
+     */
+    void setNodeLister(NodeLister nodeLister) {
+        this.nodeLister = nodeLister;
+    }
+
+    /**
+     * Injects the metrics the listing and filtering of the nodes are recorded to.
+     */
+    void setMetrics(DiscoveryMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Injects an already built fan-out over per location ComputeServices.
+     */
+    void setLocationFanOut(LocationFanOut locationFanOut) {
+        this.locationFanOut = locationFanOut;
+    }
+
     /**
      * Gets filtered nodes.
      *
      * @return the filtered nodes
      */
     public Iterable<? extends NodeMetadata> getFilteredNodes() {
-        final String group = getOrNull(JCloudsProperties.GROUP);
-        Set<? extends NodeMetadata> result = computeService.listNodesDetailsMatching(nodesFilter);
-        Iterable<? extends NodeMetadata> filteredResult = new HashSet<NodeMetadata>();
+        long start = System.nanoTime();
+        AtomicInteger listCalls = new AtomicInteger();
+        Set<? extends NodeMetadata> result = locationFanOut != null
+                ? locationFanOut.listNodesDetailsMatching(nodesFilter, listCalls)
+                : nodeLister.listNodes(computeService, nodesFilter, listCalls);
+        long listed = System.nanoTime();
+        // providers may apply the filter to summaries only, so the details are checked once more. Nodes dropped
+        // by filters pushed down to the cloud provider are never listed, so they are not counted as filtered out
+        Predicate<ComputeMetadata> filter = nodesFilter != null ? nodesFilter : newNodeFilter();
+        Set<NodeMetadata> filteredResult = new HashSet<NodeMetadata>();
         for (NodeMetadata metadata : result) {
-            if (group != null && !group.equals(metadata.getGroup())) {
-                continue;
+            if (filter.apply(metadata)) {
+                filteredResult.add(metadata);
             }
-            if (!isNodeInsideZones(metadata) || !isNodeInsideRegions(metadata)) {
-                continue;
-            }
-            ((HashSet<NodeMetadata>) filteredResult).add(metadata);
         }
+        metrics.recordList(listed - start, listCalls.get(), result.size());
+        metrics.recordFilter(System.nanoTime() - listed, result.size() - filteredResult.size());
         return filteredResult;
     }
 
@@ -131,35 +176,28 @@ public class ComputeServiceBuilder {
     }
 
     public boolean isNodeInsideZones(NodeMetadata metadata) {
-        Location location = metadata.getLocation();
-        while (location != null) {
-            String id = location.getId();
-            if (location.getScope().equals(LocationScope.ZONE)) {
-                if (id != null && !zonesSet.isEmpty() && !zonesSet.contains(id)) {
-                    return false;
-                }
-            }
-            location = location.getParent();
-        }
-        return true;
+        String zone = locationResolver.getZone(metadata.getLocation());
+        return zone == null || zonesSet.isEmpty() || zonesSet.contains(zone);
     }
 
     public boolean isNodeInsideRegions(NodeMetadata metadata) {
-        Location location = metadata.getLocation();
-        while (location != null) {
-            String id = location.getId();
-            if (location.getScope().equals(LocationScope.REGION)) {
-                if (id != null && !regionsSet.isEmpty() && !regionsSet.contains(id)) {
-                    return false;
-                }
-            }
-            location = location.getParent();
-        }
-        return true;
+        String region = locationResolver.getRegion(metadata.getLocation());
+        return region == null || regionsSet.isEmpty() || regionsSet.contains(region);
     }
 
     public void destroy() {
-        if (computeService != null) {
+        if (locationFanOut != null) {
+            locationFanOut.shutdown();
+        }
+        if (!leases.isEmpty()) {
+            // the pool closes the contexts no other strategy uses
+            for (ComputeServiceContextPool.Lease lease : leases) {
+                lease.release();
+            }
+            leases.clear();
+        } else if (locationFanOut != null) {
+            locationFanOut.closeContexts();
+        } else if (computeService != null) {
             this.computeService.getContext().close();
         }
     }
@@ -167,7 +205,7 @@ public class ComputeServiceBuilder {
     /**
      * Build compute service.
      *
-     * @return the compute service
+     * @return the compute service, {@code null} if the nodes are listed by the direct engine
      */
     ComputeService build() {
         final String cloudProvider = getOrNull(JCloudsProperties.PROVIDER);
@@ -189,6 +227,55 @@ public class ComputeServiceBuilder {
         }
 
         final String roleName = getOrNull(JCloudsProperties.ROLE_NAME);
+        Properties jcloudsProperties = buildRegionZonesConfig();
+        buildTagConfig();
+        buildNodeFilter();
+        if (isDirectEngine()) {
+            nodeLister = buildDirectNodeLister(cloudProvider, endpoint, identity, credential, roleName);
+            return null;
+        }
+        nodeLister = buildNodeLister(cloudProvider);
+
+        Map<String, Properties> locationOverrides = buildLocationOverrides(cloudProvider, jcloudsProperties);
+        if (locationOverrides.isEmpty()) {
+            computeService = buildComputeService(cloudProvider, endpoint, identity, credential, roleName, jcloudsProperties);
+        } else {
+            Map<String, ComputeService> computeServices = new LinkedHashMap<String, ComputeService>();
+            for (Map.Entry<String, Properties> entry : locationOverrides.entrySet()) {
+                computeServices.put(entry.getKey(),
+                        buildComputeService(cloudProvider, endpoint, identity, credential, roleName, entry.getValue()));
+            }
+            int threads = getOrDefault(JCloudsProperties.FAN_OUT_THREADS, 0);
+            int timeoutSeconds = getOrDefault(JCloudsProperties.FAN_OUT_TIMEOUT_SECONDS, DEFAULT_FAN_OUT_TIMEOUT_SECONDS);
+            locationFanOut = new LocationFanOut(computeServices, nodeLister, threads, (long) timeoutSeconds * MILLIS_PER_SECOND);
+            computeService = computeServices.values().iterator().next();
+        }
+        return computeService;
+    }
+
+    /**
+     * Leases a context from the JVM wide pool, so strategies configured for the same account share it.
+     */
+    private ComputeService buildComputeService(final String cloudProvider, final String endpoint, final String identity,
+                                               final String credential, final String roleName,
+                                               final Properties jcloudsProperties) {
+        final boolean asyncLogging = getOrDefault(JCloudsProperties.ASYNC_LOGGING, false);
+        ComputeServiceContextPool.Key key = new ComputeServiceContextPool.Key(cloudProvider, endpoint, identity, credential,
+                roleName, asyncLogging, jcloudsProperties);
+        ComputeServiceContextPool.Lease lease = ComputeServiceContextPool.getInstance().acquire(key,
+                new Supplier<ComputeServiceContext>() {
+                    @Override
+                    public ComputeServiceContext get() {
+                        return newContext(cloudProvider, endpoint, identity, credential, roleName, jcloudsProperties,
+                                asyncLogging);
+                    }
+                });
+        leases.add(lease);
+        return lease.getContext().getComputeService();
+    }
+
+    private ComputeServiceContext newContext(String cloudProvider, String endpoint, String identity, String credential,
+                                             String roleName, Properties jcloudsProperties, boolean asyncLogging) {
         ContextBuilder contextBuilder = newContextBuilder(cloudProvider, identity, credential, roleName);
         if (endpoint != null) {
             if (LOGGER.isFinestEnabled()) {
@@ -196,17 +283,93 @@ public class ComputeServiceBuilder {
             }
             contextBuilder.endpoint(endpoint);
         }
+        return contextBuilder.overrides(jcloudsProperties)
+                .modules(ImmutableSet.<Module>builder()
+                        .add(new HazelcastLoggingModule(asyncLogging))
+                        .addAll(newHttpTransport().driverModules())
+                        .build())
+                .buildView(ComputeServiceContext.class);
+    }
 
-        Properties jcloudsProperties = buildRegionZonesConfig();
-        buildTagConfig();
-        buildNodeFilter();
+    /**
+     * Builds one set of jclouds overrides per configured region when the regions should be queried at the same time.
+     * With aws-ec2 and no region configured, the regions of the configured zones are used, as EC2 is listed by region.
+     * Zones are not fanned out otherwise: the providers list all zones of a region (or account) whatever zones are
+     * configured, so each zone would query the same nodes again.
+     *
+     * @param cloudProvider     the configured cloud provider
+     * @param jcloudsProperties the overrides shared by all regions
+     * @return the overrides by region, empty if the regions are queried through a single compute service
+     */
+    Map<String, Properties> buildLocationOverrides(String cloudProvider, Properties jcloudsProperties) {
+        Map<String, Properties> locationOverrides = new LinkedHashMap<String, Properties>();
+        int fanOutThreads = getOrDefault(JCloudsProperties.FAN_OUT_THREADS, 0);
+        if (fanOutThreads <= 0) {
+            return locationOverrides;
+        }
+        Set<String> regions = regionsSet;
+        if (regions.isEmpty() && AWS_EC2.equals(cloudProvider)) {
+            regions = Ec2NodeLister.regionsOf(zonesSet);
+        }
+        if (regions.size() < 2) {
+            return locationOverrides;
+        }
+        for (String region : regions) {
+            Properties overrides = new Properties();
+            overrides.putAll(jcloudsProperties);
+            overrides.setProperty(LocationConstants.PROPERTY_REGIONS, region);
+            locationOverrides.put(region, overrides);
+        }
+        return locationOverrides;
+    }
 
-        computeService = contextBuilder.overrides(jcloudsProperties)
-                .modules(ImmutableSet.of(new HazelcastLoggingModule()))
-                .buildView(ComputeServiceContext.class)
-                .getComputeService();
+    /**
+     * Chooses how nodes are listed: provider specific with the filters pushed down to the provider if
+     * supported and enabled, otherwise through the provider agnostic API with client side filtering.
+     *
+     * @param cloudProvider the configured cloud provider
+     * @return the node lister
+     */
+    NodeLister buildNodeLister(String cloudProvider) {
+        boolean pushDown = getOrDefault(JCloudsProperties.FILTER_PUSH_DOWN, true);
+        if (pushDown && AWS_EC2.equals(cloudProvider)) {
+            return new Ec2NodeLister(tagPairs, zonesSet);
+        }
+        return NodeLister.CLIENT_SIDE;
+    }
 
-        return computeService;
+    private boolean isDirectEngine() {
+        String engine = getOrDefault(JCloudsProperties.ENGINE, JCLOUDS_ENGINE);
+        if (!DIRECT_ENGINE.equals(engine) && !JCLOUDS_ENGINE.equals(engine)) {
+            throw new InvalidConfigurationException("Unrecognized engine [" + engine + "], use jclouds or direct");
+        }
+        return DIRECT_ENGINE.equals(engine);
+    }
+
+    /**
+     * Builds the lister calling the cloud API directly instead of through a jclouds compute service.
+     */
+    NodeLister buildDirectNodeLister(String cloudProvider, String endpoint, String identity, String credential,
+                                     String roleName) {
+        HttpTransport transport = newHttpTransport();
+        if (AWS_EC2.equals(cloudProvider)) {
+            Ec2DescribeInstancesClient client = new Ec2DescribeInstancesClient(endpoint,
+                    newCredentialsSupplier(cloudProvider, identity, credential, roleName),
+                    Ec2NodeLister.buildFilter(tagPairs, zonesSet), transport.getConnectTimeoutMillis(),
+                    transport.getReadTimeoutMillis());
+            return new Ec2DirectNodeLister(client, Ec2DirectNodeLister.resolveRegions(regionsSet, zonesSet));
+        }
+        if (GOOGLE_COMPUTE_ENGINE.equals(cloudProvider)) {
+            // validates the identity and credential, the access token is obtained with them
+            newCredentialsSupplier(cloudProvider, identity, credential, roleName);
+            GoogleAccessTokenSupplier accessToken = new GoogleAccessTokenSupplier(GoogleAccessTokenSupplier.TOKEN_ENDPOINT,
+                    identity, GoogleAccessTokenSupplier.parsePrivateKey(credential), transport.getConnectTimeoutMillis(),
+                    transport.getReadTimeoutMillis());
+            return new GceDirectNodeLister(new GceInstancesClient(endpoint, GceDirectNodeLister.projectOf(identity),
+                    accessToken, tagPairs, transport.getConnectTimeoutMillis(), transport.getReadTimeoutMillis()));
+        }
+        throw new InvalidConfigurationException("The direct engine is only supported with aws-ec2 and"
+                + " google-compute-engine, your cloud provider is " + cloudProvider);
     }
 
     public Properties buildRegionZonesConfig() {
@@ -230,6 +393,8 @@ public class ComputeServiceBuilder {
     public void buildTagConfig() {
         final String tagKeys = getOrNull(JCloudsProperties.TAG_KEYS);
         final String tagValues = getOrNull(JCloudsProperties.TAG_VALUES);
+        // the builder is built again after a failed build
+        tagPairs.clear();
         if (tagKeys != null && tagValues != null) {
             List<String> keysList = Arrays.asList(tagKeys.split(","));
             List<String> valueList = Arrays.asList(tagValues.split(","));
@@ -243,34 +408,25 @@ public class ComputeServiceBuilder {
     }
 
     public Predicate<ComputeMetadata> buildNodeFilter() {
-        nodesFilter = new Predicate<ComputeMetadata>() {
-            @Override
-            public boolean apply(ComputeMetadata nodeMetadata) {
-                if (nodeMetadata == null) {
-                    return false;
-                }
-                if (tagPairs.size() > nodeMetadata.getUserMetadata().size()) {
-                    return false;
-                }
-                for (AbstractMap.SimpleImmutableEntry entry : tagPairs) {
-                    String value = nodeMetadata.getUserMetadata().get(entry.getKey());
-                    if (value == null || !value.equals(entry.getValue())) {
-                        return false;
-                    }
-                }
-                return true;
-            }
-        };
+        nodesFilter = newNodeFilter();
         return nodesFilter;
     }
 
+    private NodeFilter newNodeFilter() {
+        return new NodeFilter((String) getOrNull(JCloudsProperties.GROUP), tagPairs, zonesSet, regionsSet, locationResolver);
+    }
+
     public String getCredentialFromFile(String provider, String credentialPath) throws IllegalArgumentException {
         try {
             String fileContents = Files.toString(new File(credentialPath), Charsets.UTF_8);
 
             if (provider.equals(GOOGLE_COMPUTE_ENGINE)) {
-                Supplier<Credentials> credentialSupplier = new GoogleCredentialsFromJson(fileContents);
-                return credentialSupplier.get().credential;
+                String privateKey = JsonFieldReader.readStringFields(new StringReader(fileContents),
+                        Collections.singleton(GOOGLE_PRIVATE_KEY_FIELD)).get(GOOGLE_PRIVATE_KEY_FIELD);
+                if (privateKey == null) {
+                    throw new InvalidConfigurationException("No private key found in the file: " + credentialPath);
+                }
+                return privateKey;
             }
 
             return fileContents;
@@ -282,26 +438,10 @@ public class ComputeServiceBuilder {
     public ContextBuilder newContextBuilder(final String cloudProvider, final String identity,
                                             final String credential, final String roleName) {
         try {
-            if (roleName != null && (identity != null || credential != null)) {
-                throw new InvalidConfigurationException("IAM role is configured,"
-                        + " identity or credential property is not allowed.");
-            }
-            if (roleName != null && !cloudProvider.equals(AWS_EC2)) {
-                throw new InvalidConfigurationException("IAM role is only supported with aws-ec2,"
-                        + " your cloud provider is " + cloudProvider);
-            }
-            if (cloudProvider.equals(AWS_EC2) && roleName != null) {
-                Supplier<Credentials> credentialsSupplier = new Supplier<Credentials>() {
-                    @Override
-                    public Credentials get() {
-                        return new IAMRoleCredentialSupplierBuilder().
-                                withRoleName(roleName).build();
-                    }
-                };
+            Supplier<Credentials> credentialsSupplier = newCredentialsSupplier(cloudProvider, identity, credential, roleName);
+            if (roleName != null) {
                 return ContextBuilder.newBuilder(cloudProvider).credentialsSupplier(credentialsSupplier);
             } else {
-                checkNotNull(identity, "Cloud provider identity is not set");
-                checkNotNull(credential, "Cloud provider credential is not set");
                 return ContextBuilder.newBuilder(cloudProvider).credentials(identity, credential);
             }
         } catch (NoSuchElementException e) {
@@ -309,13 +449,41 @@ public class ComputeServiceBuilder {
         }
     }
 
+    private Supplier<Credentials> newCredentialsSupplier(String cloudProvider, String identity, String credential,
+                                                         String roleName) {
+        if (roleName != null && (identity != null || credential != null)) {
+            throw new InvalidConfigurationException("IAM role is configured,"
+                    + " identity or credential property is not allowed.");
+        }
+        if (roleName != null && !cloudProvider.equals(AWS_EC2)) {
+            throw new InvalidConfigurationException("IAM role is only supported with aws-ec2,"
+                    + " your cloud provider is " + cloudProvider);
+        }
+        if (roleName != null) {
+            return CachingCredentialsSupplier.forIamRole(roleName, CREDENTIALS_REFRESH_AHEAD_MILLIS,
+                    CREDENTIALS_DEFAULT_TTL_MILLIS);
+        }
+        checkNotNull(identity, "Cloud provider identity is not set");
+        checkNotNull(credential, "Cloud provider credential is not set");
+        return Suppliers.ofInstance(new Credentials(identity, credential));
+    }
+
     private Properties newOverrideProperties() {
         Properties properties = new Properties();
-        properties.setProperty(Constants.PROPERTY_SO_TIMEOUT, JCLOUD_CONNECTION_TIMEOUT);
-        properties.setProperty(Constants.PROPERTY_CONNECTION_TIMEOUT, JCLOUD_CONNECTION_TIMEOUT);
+        newHttpTransport().applyTo(properties);
         return properties;
     }
 
+    HttpTransport newHttpTransport() {
+        return new HttpTransport(
+                getOrDefault(JCloudsProperties.HTTP_CONNECT_TIMEOUT_MILLIS, HttpTransport.DEFAULT_TIMEOUT_MILLIS),
+                getOrDefault(JCloudsProperties.HTTP_READ_TIMEOUT_MILLIS, HttpTransport.DEFAULT_TIMEOUT_MILLIS),
+                getOrDefault(JCloudsProperties.HTTP_MAX_CONNECTIONS_PER_HOST, 0),
+                getOrDefault(JCloudsProperties.HTTP_KEEP_ALIVE_SECONDS, HttpTransport.DEFAULT_KEEP_ALIVE_SECONDS),
+                getOrDefault(JCloudsProperties.HTTP_GZIP, true),
+                (String) getOrNull(JCloudsProperties.HTTP_DRIVER));
+    }
+
     private <T extends Comparable> T getOrNull(PropertyDefinition property) {
         return getOrDefault(property, null);
     }
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.jclouds;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Objects;
+import com.google.common.base.Supplier;
+import com.google.common.hash.Hashing;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+import org.jclouds.compute.ComputeServiceContext;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * JVM wide pool of jclouds compute service contexts. Discovery strategies configured for the same cloud
+ * account share one context, with its injector, executors and connection pool, instead of building their
+ * own. Contexts are reference counted and closed when the last lease is released.
+ */
+final class ComputeServiceContextPool {
+
+    private static final ILogger LOGGER = Logger.getLogger(ComputeServiceContextPool.class);
+    private static final ComputeServiceContextPool INSTANCE = new ComputeServiceContextPool();
+
+    private final Map<Key, Entry> entries = new HashMap<Key, Entry>();
+
+    static ComputeServiceContextPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Leases the context for the key, building it with the factory if no context is pooled for the key yet.
+     * Only the first lease of a key builds the context, concurrent leases of the same key wait for it.
+     *
+     * @param key     identifies the cloud account and context configuration
+     * @param factory builds the context
+     * @return the lease, to be released when the context is no longer used
+     */
+    Lease acquire(Key key, Supplier<ComputeServiceContext> factory) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry == null) {
+                entry = new Entry();
+                entries.put(key, entry);
+            }
+            entry.references++;
+        }
+        try {
+            return new Lease(key, entry.getContext(factory));
+        } catch (RuntimeException e) {
+            release(key);
+            throw e;
+        }
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private void release(Key key) {
+        Entry released;
+        synchronized (this) {
+            released = entries.get(key);
+            if (released == null || --released.references > 0) {
+                return;
+            }
+            entries.remove(key);
+        }
+        released.close();
+    }
+
+    /**
+     * Identifies a pooled context: the cloud account it connects to and the configuration of the context.
+     * The credential is kept as a hash only.
+     */
+    static final class Key {
+
+        private final String provider;
+        private final String endpoint;
+        private final String identity;
+        private final String credentialHash;
+        private final String roleName;
+        private final boolean asyncLogging;
+        private final Map<Object, Object> overrides;
+
+        Key(String provider, String endpoint, String identity, String credential, String roleName, boolean asyncLogging,
+            Properties overrides) {
+            this.provider = provider;
+            this.endpoint = endpoint;
+            this.identity = identity;
+            this.credentialHash = credential == null ? null : Hashing.sha256().hashString(credential, Charsets.UTF_8).toString();
+            this.roleName = roleName;
+            this.asyncLogging = asyncLogging;
+            this.overrides = new TreeMap<Object, Object>(overrides);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return asyncLogging == key.asyncLogging
+                    && Objects.equal(provider, key.provider)
+                    && Objects.equal(endpoint, key.endpoint)
+                    && Objects.equal(identity, key.identity)
+                    && Objects.equal(credentialHash, key.credentialHash)
+                    && Objects.equal(roleName, key.roleName)
+                    && overrides.equals(key.overrides);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(provider, endpoint, identity, credentialHash, roleName, asyncLogging, overrides);
+        }
+
+        @Override
+        public String toString() {
+            return provider + (endpoint == null ? "" : " at " + endpoint) + (identity == null ? "" : " as " + identity);
+        }
+    }
+
+    /**
+     * A reference to a pooled context.
+     */
+    final class Lease {
+
+        private final Key key;
+        private final ComputeServiceContext context;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Lease(Key key, ComputeServiceContext context) {
+            this.key = key;
+            this.context = context;
+        }
+
+        ComputeServiceContext getContext() {
+            return context;
+        }
+
+        /**
+         * Releases the reference, the context is closed when no other lease references it.
+         * Releasing more than once has no effect.
+         */
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                ComputeServiceContextPool.this.release(key);
+            }
+        }
+    }
+
+    /**
+     * A pooled context, built by the first lease.
+     */
+    private static final class Entry {
+
+        private int references;
+        private ComputeServiceContext context;
+
+        synchronized ComputeServiceContext getContext(Supplier<ComputeServiceContext> factory) {
+            if (context == null) {
+                context = factory.get();
+            }
+            return context;
+        }
+
+        synchronized void close() {
+            if (context != null) {
+                try {
+                    context.close();
+                } catch (RuntimeException e) {
+                    LOGGER.warning("Failed to close the compute service context. Cause: " + e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.jclouds;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streams an EC2 {@code DescribeInstances} response into slim instance records. Only the fields needed for
+ * the discovery are kept: the addresses, tags, security groups, state and placement. Elements are matched by
+ * their path, so the addresses nested in the network interfaces of an instance are not mistaken for its own.
+ */
+final class DescribeInstancesParser {
+
+    private static final String INSTANCE_PATH = "reservationSet/item/instancesSet/item";
+    private static final String NEXT_TOKEN_PATH = "nextToken";
+
+    private final LinkedList<String> paths = new LinkedList<String>();
+    private final StringBuilder text = new StringBuilder();
+    private final List<Instance> instances = new ArrayList<Instance>();
+    private Instance current;
+    private String tagKey;
+    private String nextToken;
+
+    private DescribeInstancesParser() {
+    }
+
+    /**
+     * Parses one page of the response.
+     *
+     * @param in the response body, not closed
+     * @return the instances and the token of the next page
+     * @throws XMLStreamException if the response is malformed
+     */
+    static Page parse(InputStream in) throws XMLStreamException {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        XMLStreamReader reader = factory.createXMLStreamReader(in, "UTF-8");
+        try {
+            DescribeInstancesParser parser = new DescribeInstancesParser();
+            parser.read(reader);
+            return new Page(parser.instances, parser.nextToken);
+        } finally {
+            reader.close();
+        }
+    }
+
+    private void read(XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String path = childPath(paths.peek(), reader.getLocalName());
+                paths.push(path);
+                text.setLength(0);
+                if (INSTANCE_PATH.equals(path)) {
+                    current = new Instance();
+                }
+            } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+                text.append(reader.getText());
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                onEnd(paths.pop(), text.toString().trim());
+                text.setLength(0);
+            }
+        }
+    }
+
+    /**
+     * Paths are relative to the root element, which itself has the empty path.
+     */
+    private static String childPath(String parent, String name) {
+        if (parent == null) {
+            return "";
+        }
+        return parent.isEmpty() ? name : parent + '/' + name;
+    }
+
+    private void onEnd(String path, String value) {
+        if (NEXT_TOKEN_PATH.equals(path)) {
+            nextToken = value.isEmpty() ? null : value;
+        } else if (INSTANCE_PATH.equals(path)) {
+            instances.add(current);
+            current = null;
+        } else if (current != null && path.startsWith(INSTANCE_PATH)) {
+            String field = path.substring(INSTANCE_PATH.length() + 1);
+            if ("tagSet/item/key".equals(field)) {
+                tagKey = value;
+            } else if ("tagSet/item/value".equals(field)) {
+                current.tags.put(tagKey, value);
+            } else {
+                current.set(field, value);
+            }
+        }
+    }
+
+    /**
+     * One page of instances and the token of the next page, {@code null} on the last page.
+     */
+    static final class Page {
+
+        final List<Instance> instances;
+        final String nextToken;
+
+        Page(List<Instance> instances, String nextToken) {
+            this.instances = instances;
+            this.nextToken = nextToken;
+        }
+    }
+
+    /**
+     * The fields of an EC2 instance the discovery needs.
+     */
+    static final class Instance {
+
+        String id;
+        String state;
+        String availabilityZone;
+        String privateIpAddress;
+        String publicIpAddress;
+        String privateDnsName;
+        final Map<String, String> tags = new LinkedHashMap<String, String>();
+        final List<String> securityGroups = new ArrayList<String>();
+
+        private void set(String field, String value) {
+            if (value.isEmpty()) {
+                return;
+            }
+            if ("instanceId".equals(field)) {
+                id = value;
+            } else if ("instanceState/name".equals(field)) {
+                state = value;
+            } else if ("placement/availabilityZone".equals(field)) {
+                availabilityZone = value;
+            } else if ("privateIpAddress".equals(field)) {
+                privateIpAddress = value;
+            } else if ("ipAddress".equals(field)) {
+                publicIpAddress = value;
+            } else if ("privateDnsName".equals(field)) {
+                privateDnsName = value;
+            } else if ("groupSet/item/groupName".equals(field)) {
+                securityGroups.add(value);
+            }
+        }
+    }
+}
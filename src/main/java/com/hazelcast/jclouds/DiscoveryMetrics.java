@@ -0,0 +1,174 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.jclouds;
+
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters, gauges and per phase latency histograms of the node discovery. Recording is lock-free;
+ * the values are read through {@link #snapshot()} or, if registered, through JMX.
+ */
+public final class DiscoveryMetrics implements DiscoveryMetricsMBean {
+
+    private static final ILogger LOGGER = Logger.getLogger(DiscoveryMetrics.class);
+    private static final AtomicInteger INSTANCE_COUNTER = new AtomicInteger();
+
+    private final AtomicLong discoveries = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong listCalls = new AtomicLong();
+    private final AtomicLong nodesListed = new AtomicLong();
+    private final AtomicLong nodesFilteredOut = new AtomicLong();
+    private final AtomicLong nodesUnresolvable = new AtomicLong();
+    private final AtomicInteger discoveredNodes = new AtomicInteger();
+    private final LatencyHistogram listLatency = new LatencyHistogram();
+    private final LatencyHistogram filterLatency = new LatencyHistogram();
+    private final LatencyHistogram mapLatency = new LatencyHistogram();
+
+    private volatile ObjectName objectName;
+
+    void recordList(long nanos, int calls, int nodes) {
+        listLatency.record(nanos);
+        listCalls.addAndGet(calls);
+        nodesListed.addAndGet(nodes);
+    }
+
+    void recordFilter(long nanos, int filteredOut) {
+        filterLatency.record(nanos);
+        nodesFilteredOut.addAndGet(filteredOut);
+    }
+
+    void recordMap(long nanos, int nodes, int unresolvable) {
+        mapLatency.record(nanos);
+        discoveries.incrementAndGet();
+        discoveredNodes.set(nodes);
+        nodesUnresolvable.addAndGet(unresolvable);
+    }
+
+    void recordFailure() {
+        failures.incrementAndGet();
+    }
+
+    /**
+     * @return a point-in-time copy of the metrics
+     */
+    public DiscoveryMetricsSnapshot snapshot() {
+        return new DiscoveryMetricsSnapshot(discoveries.get(), failures.get(), listCalls.get(), nodesListed.get(),
+                nodesFilteredOut.get(), nodesUnresolvable.get(), discoveredNodes.get(), listLatency.snapshot(),
+                filterLatency.snapshot(), mapLatency.snapshot());
+    }
+
+    void registerMBean() {
+        try {
+            ObjectName name = new ObjectName("com.hazelcast.jclouds:type=DiscoveryMetrics,name=discovery-"
+                    + INSTANCE_COUNTER.incrementAndGet());
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            objectName = name;
+        } catch (JMException e) {
+            LOGGER.warning("Failed to register the discovery metrics MBean. Cause: " + e.getMessage());
+        }
+    }
+
+    void unregisterMBean() {
+        ObjectName name = objectName;
+        if (name == null) {
+            return;
+        }
+        objectName = null;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.unregisterMBean(name);
+        } catch (JMException e) {
+            LOGGER.finest("Failed to unregister the discovery metrics MBean", e);
+        }
+    }
+
+    ObjectName getObjectName() {
+        return objectName;
+    }
+
+    @Override
+    public long getDiscoveries() {
+        return discoveries.get();
+    }
+
+    @Override
+    public long getFailures() {
+        return failures.get();
+    }
+
+    @Override
+    public long getListCalls() {
+        return listCalls.get();
+    }
+
+    @Override
+    public long getNodesListed() {
+        return nodesListed.get();
+    }
+
+    @Override
+    public long getNodesFilteredOut() {
+        return nodesFilteredOut.get();
+    }
+
+    @Override
+    public long getNodesUnresolvable() {
+        return nodesUnresolvable.get();
+    }
+
+    @Override
+    public int getDiscoveredNodes() {
+        return discoveredNodes.get();
+    }
+
+    @Override
+    public long getListLatencyMeanMicros() {
+        return listLatency.snapshot().getMeanMicros();
+    }
+
+    @Override
+    public long getListLatencyP99Micros() {
+        return listLatency.snapshot().getP99Micros();
+    }
+
+    @Override
+    public long getFilterLatencyMeanMicros() {
+        return filterLatency.snapshot().getMeanMicros();
+    }
+
+    @Override
+    public long getFilterLatencyP99Micros() {
+        return filterLatency.snapshot().getP99Micros();
+    }
+
+    @Override
+    public long getMapLatencyMeanMicros() {
+        return mapLatency.snapshot().getMeanMicros();
+    }
+
+    @Override
+    public long getMapLatencyP99Micros() {
+        return mapLatency.snapshot().getP99Micros();
+    }
+}
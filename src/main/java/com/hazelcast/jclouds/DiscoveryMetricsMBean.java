@@ -0,0 +1,48 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.jclouds;
+
+/**
+ * JMX view of the {@link DiscoveryMetrics}. Latencies are in microseconds.
+ */
+public interface DiscoveryMetricsMBean {
+
+    long getDiscoveries();
+
+    long getFailures();
+
+    long getListCalls();
+
+    long getNodesListed();
+
+    long getNodesFilteredOut();
+
+    long getNodesUnresolvable();
+
+    int getDiscoveredNodes();
+
+    long getListLatencyMeanMicros();
+
+    long getListLatencyP99Micros();
+
+    long getFilterLatencyMeanMicros();
+
+    long getFilterLatencyP99Micros();
+
+    long getMapLatencyMeanMicros();
+
+    long getMapLatencyP99Micros();
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.jclouds;
+
+/**
+ * Point-in-time copy of the {@link DiscoveryMetrics} of a {@link JCloudsDiscoveryStrategy}.
+ */
+public final class DiscoveryMetricsSnapshot {
+
+    private final long discoveries;
+    private final long failures;
+    private final long listCalls;
+    private final long nodesListed;
+    private final long nodesFilteredOut;
+    private final long nodesUnresolvable;
+    private final int discoveredNodes;
+    private final Latency listLatency;
+    private final Latency filterLatency;
+    private final Latency mapLatency;
+
+    DiscoveryMetricsSnapshot(long discoveries, long failures, long listCalls, long nodesListed, long nodesFilteredOut,
+                             long nodesUnresolvable, int discoveredNodes, Latency listLatency, Latency filterLatency,
+                             Latency mapLatency) {
+        this.discoveries = discoveries;
+        this.failures = failures;
+        this.listCalls = listCalls;
+        this.nodesListed = nodesListed;
+        this.nodesFilteredOut = nodesFilteredOut;
+        this.nodesUnresolvable = nodesUnresolvable;
+        this.discoveredNodes = discoveredNodes;
+        this.listLatency = listLatency;
+        this.filterLatency = filterLatency;
+        this.mapLatency = mapLatency;
+    }
+
+    /**
+     * @return the number of node discoveries against the cloud provider
+     */
+    public long getDiscoveries() {
+        return discoveries;
+    }
+
+    /**
+     * @return the number of node discoveries which failed
+     */
+    public long getFailures() {
+        return failures;
+    }
+
+    /**
+     * @return the number of node listing requests sent to the cloud provider, one per region, zone or page
+     * where the lister sends several
+     */
+    public long getListCalls() {
+        return listCalls;
+    }
+
+    /**
+     * @return the number of nodes returned by the cloud provider
+     */
+    public long getNodesListed() {
+        return nodesListed;
+    }
+
+    /**
+     * @return the number of listed nodes dropped by the group, tag, zone or region filter on the client, nodes
+     * dropped by filters pushed down to the cloud provider are not listed and not counted
+     */
+    public long getNodesFilteredOut() {
+        return nodesFilteredOut;
+    }
+
+    /**
+     * @return the number of nodes skipped because their address could not be resolved
+     */
+    public long getNodesUnresolvable() {
+        return nodesUnresolvable;
+    }
+
+    /**
+     * @return the number of nodes returned by the last discovery
+     */
+    public int getDiscoveredNodes() {
+        return discoveredNodes;
+    }
+
+    /**
+     * @return the latency of listing the nodes at the cloud provider
+     */
+    public Latency getListLatency() {
+        return listLatency;
+    }
+
+    /**
+     * @return the latency of filtering the listed nodes
+     */
+    public Latency getFilterLatency() {
+        return filterLatency;
+    }
+
+    /**
+     * @return the latency of mapping the filtered nodes to discovery nodes
+     */
+    public Latency getMapLatency() {
+        return mapLatency;
+    }
+
+    /**
+     * Latency statistics of a discovery phase in microseconds. Percentiles are bucket estimates.
+     */
+    public static final class Latency {
+
+        static final double MEDIAN = 0.5;
+        static final double P99 = 0.99;
+
+        private final long count;
+        private final long meanMicros;
+        private final long medianMicros;
+        private final long p99Micros;
+        private final long maxMicros;
+
+        Latency(long count, long meanMicros, long medianMicros, long p99Micros, long maxMicros) {
+            this.count = count;
+            this.meanMicros = meanMicros;
+            this.medianMicros = medianMicros;
+            this.p99Micros = p99Micros;
+            this.maxMicros = maxMicros;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMeanMicros() {
+            return meanMicros;
+        }
+
+        public long getMedianMicros() {
+            return medianMicros;
+        }
+
+        public long getP99Micros() {
+            return p99Micros;
+        }
+
+        public long getMaxMicros() {
+            return maxMicros;
+        }
+
+        @Override
+        public String toString() {
+            return "Latency{count=" + count + ", meanMicros=" + meanMicros + ", medianMicros=" + medianMicros
+                    + ", p99Micros=" + p99Micros + ", maxMicros=" + maxMicros + '}';
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.jclouds;
+
+import com.hazelcast.spi.discovery.DiscoveryNode;
+
+/**
+ * Listener notified about the membership changes between two successive node discoveries of
+ * {@link JCloudsDiscoveryStrategy}. Nodes are identified by their cloud instance id.
+ * <p>
+ * Listeners are called on the thread running the discovery and must not block.
+ */
+public interface DiscoveryNodeListener {
+
+    /**
+     * Called when an instance is discovered which was not part of the previous discovery.
+     *
+     * @param instanceId the cloud instance id
+     * @param node       the discovered node
+     */
+    void nodeAdded(String instanceId, DiscoveryNode node);
+
+    /**
+     * Called when an instance of the previous discovery is not discovered anymore.
+     *
+     * @param instanceId the cloud instance id
+     * @param node       the previously discovered node
+     */
+    void nodeRemoved(String instanceId, DiscoveryNode node);
+
+    /**
+     * Called when the private or public address of an already discovered instance has changed.
+     *
+     * @param instanceId the cloud instance id
+     * @param previous   the previously discovered node
+     * @param current    the currently discovered node
+     */
+    void nodeAddressChanged(String instanceId, DiscoveryNode previous, DiscoveryNode current);
+}
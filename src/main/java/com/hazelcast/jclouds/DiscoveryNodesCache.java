@@ -0,0 +1,164 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.jclouds;
+
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+import com.hazelcast.spi.discovery.DiscoveryNode;
+import com.hazelcast.util.Clock;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.hazelcast.util.ExceptionUtil.rethrow;
+
+/**
+ * Holds the last discovered nodes and serves them until they expire. Expired snapshots are still
+ * served while a refresh runs in the background (stale-while-revalidate), optionally the snapshot
+ * is also refreshed periodically.
+ */
+final class DiscoveryNodesCache {
+
+    private static final ILogger LOGGER = Logger.getLogger(DiscoveryNodesCache.class);
+
+    private final Callable<List<DiscoveryNode>> loader;
+    private final long ttlMillis;
+    private final long refreshIntervalMillis;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final ScheduledExecutorService executor;
+
+    private volatile Snapshot snapshot;
+
+    DiscoveryNodesCache(Callable<List<DiscoveryNode>> loader, long ttlMillis, long refreshIntervalMillis) {
+        this.loader = loader;
+        this.ttlMillis = ttlMillis;
+        this.refreshIntervalMillis = refreshIntervalMillis;
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1,
+                new DaemonThreadFactory("hz.jclouds.discovery-refresh"));
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        this.executor = executor;
+    }
+
+    /**
+     * Starts the periodic background refresh, if configured.
+     */
+    void start() {
+        if (refreshIntervalMillis <= 0) {
+            return;
+        }
+        executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                refresh();
+            }
+        }, refreshIntervalMillis, refreshIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Serves the given nodes until the first refresh completes, the first {@link #get()} triggers the refresh.
+     *
+     * @param nodes the nodes to serve, e.g. persisted by a previous run
+     */
+    void prime(List<DiscoveryNode> nodes) {
+        if (snapshot == null) {
+            snapshot = new Snapshot(nodes, 0);
+        }
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Returns the cached nodes. Loads them synchronously when nothing is cached yet,
+     * triggers a background refresh when the cached nodes are expired.
+     *
+     * @return the discovered nodes
+     */
+    List<DiscoveryNode> get() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return load();
+        }
+        if (current.isExpired(ttlMillis)) {
+            scheduleRefresh();
+        }
+        return current.nodes;
+    }
+
+    private void scheduleRefresh() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        refresh();
+                    } finally {
+                        refreshing.set(false);
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            // rejected after shutdown, the stale snapshot is served
+            refreshing.set(false);
+        }
+    }
+
+    private void refresh() {
+        try {
+            load();
+        } catch (RuntimeException e) {
+            LOGGER.warning("Failed to refresh discovered nodes, serving the previous snapshot. Cause: " + e.getMessage());
+        }
+    }
+
+    private List<DiscoveryNode> load() {
+        List<DiscoveryNode> nodes;
+        try {
+            nodes = Collections.unmodifiableList(loader.call());
+        } catch (Exception e) {
+            throw rethrow(e);
+        }
+        snapshot = new Snapshot(nodes, Clock.currentTimeMillis());
+        return nodes;
+    }
+
+    /**
+     * Immutable pair of discovered nodes and the time they were loaded.
+     */
+    private static final class Snapshot {
+
+        private final List<DiscoveryNode> nodes;
+        private final long loadedAt;
+
+        Snapshot(List<DiscoveryNode> nodes, long loadedAt) {
+            this.nodes = nodes;
+            this.loadedAt = loadedAt;
+        }
+
+        boolean isExpired(long ttlMillis) {
+            return Clock.currentTimeMillis() - loadedAt >= ttlMillis;
+        }
+    }
+}
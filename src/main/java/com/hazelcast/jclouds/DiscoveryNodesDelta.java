@@ -0,0 +1,112 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.jclouds;
+
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+import com.hazelcast.nio.Address;
+import com.hazelcast.spi.discovery.DiscoveryNode;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Diffs successive discovery results by instance id and publishes the changes
+ * to the registered {@link DiscoveryNodeListener}s.
+ */
+final class DiscoveryNodesDelta {
+
+    private static final ILogger LOGGER = Logger.getLogger(DiscoveryNodesDelta.class);
+
+    private final List<DiscoveryNodeListener> listeners = new CopyOnWriteArrayList<DiscoveryNodeListener>();
+    private Map<String, DiscoveryNode> previous = Collections.emptyMap();
+
+    void addListener(DiscoveryNodeListener listener) {
+        listeners.add(listener);
+    }
+
+    boolean removeListener(DiscoveryNodeListener listener) {
+        return listeners.remove(listener);
+    }
+
+    /**
+     * Compares the given nodes with the previously applied ones and notifies the listeners about
+     * added, removed and changed nodes. The given map is kept as the new previous state.
+     *
+     * @param current the discovered nodes by instance id
+     */
+    synchronized void apply(Map<String, DiscoveryNode> current) {
+        Map<String, DiscoveryNode> last = previous;
+        previous = current;
+        if (listeners.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<String, DiscoveryNode> entry : current.entrySet()) {
+            DiscoveryNode lastNode = last.get(entry.getKey());
+            if (lastNode == null) {
+                fireAdded(entry.getKey(), entry.getValue());
+            } else if (isAddressChanged(lastNode, entry.getValue())) {
+                fireAddressChanged(entry.getKey(), lastNode, entry.getValue());
+            }
+        }
+        for (Map.Entry<String, DiscoveryNode> entry : last.entrySet()) {
+            if (!current.containsKey(entry.getKey())) {
+                fireRemoved(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private static boolean isAddressChanged(DiscoveryNode previous, DiscoveryNode current) {
+        return !equals(previous.getPrivateAddress(), current.getPrivateAddress())
+                || !equals(previous.getPublicAddress(), current.getPublicAddress());
+    }
+
+    private static boolean equals(Address a, Address b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private void fireAdded(String instanceId, DiscoveryNode node) {
+        for (DiscoveryNodeListener listener : listeners) {
+            try {
+                listener.nodeAdded(instanceId, node);
+            } catch (RuntimeException e) {
+                LOGGER.warning("Discovery node listener failed on added node " + instanceId, e);
+            }
+        }
+    }
+
+    private void fireRemoved(String instanceId, DiscoveryNode node) {
+        for (DiscoveryNodeListener listener : listeners) {
+            try {
+                listener.nodeRemoved(instanceId, node);
+            } catch (RuntimeException e) {
+                LOGGER.warning("Discovery node listener failed on removed node " + instanceId, e);
+            }
+        }
+    }
+
+    private void fireAddressChanged(String instanceId, DiscoveryNode previous, DiscoveryNode current) {
+        for (DiscoveryNodeListener listener : listeners) {
+            try {
+                listener.nodeAddressChanged(instanceId, previous, current);
+            } catch (RuntimeException e) {
+                LOGGER.warning("Discovery node listener failed on changed node " + instanceId, e);
+            }
+        }
+    }
+}
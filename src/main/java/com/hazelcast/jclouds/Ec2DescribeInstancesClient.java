@@ -0,0 +1,172 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.jclouds;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Supplier;
+import com.google.common.collect.Multimap;
+import com.google.common.io.ByteStreams;
+import com.hazelcast.util.Clock;
+import org.jclouds.domain.Credentials;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.HttpResponseException;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Calls the EC2 {@code DescribeInstances} action directly, signed with Signature Version 4, and streams the
+ * XML response into slim instance records. Follows the pages of the response until the last one. Unlike the
+ * jclouds compute service it does not load images, hardware profiles or the location tree.
+ */
+final class Ec2DescribeInstancesClient {
+
+    static final String API_VERSION = "2016-11-15";
+
+    private static final int MAX_RESULTS = 1000;
+
+    private final String endpoint;
+    private final Supplier<Credentials> credentials;
+    private final String filterParameters;
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+    private final AwsV4Signer signer = new AwsV4Signer("ec2");
+
+    /**
+     * @param endpoint             the endpoint used for all regions, {@code null} for the regional AWS endpoints
+     * @param credentials          the credentials the requests are signed with
+     * @param filter               the {@code DescribeInstances} filters, by filter name
+     * @param connectTimeoutMillis the connect timeout
+     * @param readTimeoutMillis    the read timeout
+     */
+    Ec2DescribeInstancesClient(String endpoint, Supplier<Credentials> credentials, Multimap<String, String> filter,
+                               int connectTimeoutMillis, int readTimeoutMillis) {
+        this.endpoint = endpoint;
+        this.credentials = credentials;
+        this.filterParameters = encodeFilter(filter);
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+
+    /**
+     * Lists the instances of a region matching the filters.
+     *
+     * @param region the region
+     * @param calls  incremented by the number of requested pages
+     * @return the instances of all pages
+     * @throws IOException            if the request fails
+     * @throws HttpResponseException  if EC2 answers with an error
+     */
+    List<DescribeInstancesParser.Instance> describeInstances(String region, AtomicInteger calls) throws IOException {
+        List<DescribeInstancesParser.Instance> instances = new ArrayList<DescribeInstancesParser.Instance>();
+        String nextToken = null;
+        do {
+            calls.incrementAndGet();
+            DescribeInstancesParser.Page page = request(region, payload(nextToken));
+            instances.addAll(page.instances);
+            nextToken = page.nextToken;
+        } while (nextToken != null);
+        return instances;
+    }
+
+    String payload(String nextToken) {
+        StringBuilder payload = new StringBuilder("Action=DescribeInstances&Version=").append(API_VERSION)
+                .append("&MaxResults=").append(MAX_RESULTS)
+                .append(filterParameters);
+        if (nextToken != null) {
+            payload.append("&NextToken=").append(encode(nextToken));
+        }
+        return payload.toString();
+    }
+
+    private DescribeInstancesParser.Page request(String region, String payload) throws IOException {
+        URL url = new URL(endpoint != null ? endpoint : "https://ec2." + region + ".amazonaws.com/");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setConnectTimeout(connectTimeoutMillis);
+        connection.setReadTimeout(readTimeoutMillis);
+        connection.setUseCaches(false);
+        connection.setDoOutput(true);
+        Map<String, String> headers = signer.sign(hostHeader(url), url.getPath(), region, payload, credentials.get(),
+                Clock.currentTimeMillis());
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            connection.setRequestProperty(header.getKey(), header.getValue());
+        }
+        OutputStream out = connection.getOutputStream();
+        try {
+            out.write(payload.getBytes(Charsets.UTF_8));
+        } finally {
+            out.close();
+        }
+        int status = connection.getResponseCode();
+        if (status != HttpURLConnection.HTTP_OK) {
+            // the error body has to be consumed as well to keep the connection reusable
+            InputStream errorStream = connection.getErrorStream();
+            String content = errorStream != null ? new String(ByteStreams.toByteArray(errorStream), Charsets.UTF_8) : null;
+            throw new HttpResponseException("DescribeInstances in region " + region + " failed with HTTP status " + status,
+                    null, HttpResponse.builder().statusCode(status).build(), content);
+        }
+        InputStream in = connection.getInputStream();
+        try {
+            return DescribeInstancesParser.parse(in);
+        } catch (XMLStreamException e) {
+            throw new IOException("Malformed DescribeInstances response from " + url, e);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * The host header sent by {@link HttpURLConnection}, which is part of the signature.
+     */
+    private static String hostHeader(URL url) {
+        int port = url.getPort();
+        return port == -1 || port == url.getDefaultPort() ? url.getHost() : url.getHost() + ':' + port;
+    }
+
+    private static String encodeFilter(Multimap<String, String> filter) {
+        StringBuilder parameters = new StringBuilder();
+        int index = 1;
+        for (Map.Entry<String, Collection<String>> entry : filter.asMap().entrySet()) {
+            String prefix = "&Filter." + index++;
+            parameters.append(prefix).append(".Name=").append(encode(entry.getKey()));
+            int valueIndex = 1;
+            for (String value : entry.getValue()) {
+                parameters.append(prefix).append(".Value.").append(valueIndex++).append('=').append(encode(value));
+            }
+        }
+        return parameters.toString();
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException("UTF-8 is not supported", e);
+        }
+    }
+}
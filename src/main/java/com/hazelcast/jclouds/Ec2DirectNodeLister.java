@@ -0,0 +1,146 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.jclouds;
+
+import com.google.common.base.Predicate;
+import com.hazelcast.config.InvalidConfigurationException;
+import com.hazelcast.core.HazelcastException;
+import org.jclouds.compute.ComputeService;
+import org.jclouds.compute.domain.ComputeMetadata;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.NodeMetadataBuilder;
+import org.jclouds.domain.Location;
+import org.jclouds.domain.LocationBuilder;
+import org.jclouds.domain.LocationScope;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lists the nodes straight from the EC2 API through {@link Ec2DescribeInstancesClient}, without a jclouds
+ * compute service, which is therefore not used. The instance records are turned into plain node metadata,
+ * so they pass the same filters and address mapping as the nodes listed by jclouds.
+ */
+final class Ec2DirectNodeLister implements NodeLister {
+
+    private static final String GROUP_PREFIX = "jclouds#";
+    private static final String NAME_TAG = "Name";
+
+    private final Ec2DescribeInstancesClient client;
+    private final Set<String> regions;
+    private final ConcurrentMap<String, Location> zones = new ConcurrentHashMap<String, Location>();
+
+    Ec2DirectNodeLister(Ec2DescribeInstancesClient client, Set<String> regions) {
+        this.client = client;
+        this.regions = regions;
+    }
+
+    /**
+     * Returns the configured regions, or the regions of the configured zones if no region is configured.
+     *
+     * @param regions the configured regions
+     * @param zones   the configured availability zones
+     * @return the regions to query
+     * @throws InvalidConfigurationException if neither regions nor zones are configured
+     */
+    static Set<String> resolveRegions(Set<String> regions, Set<String> zones) {
+        if (!regions.isEmpty()) {
+            return regions;
+        }
+        if (zones.isEmpty()) {
+            throw new InvalidConfigurationException("The direct engine requires the regions or zones to be configured");
+        }
+        return Ec2NodeLister.regionsOf(zones);
+    }
+
+    @Override
+    public Set<? extends NodeMetadata> listNodes(ComputeService computeService, Predicate<ComputeMetadata> nodeFilter,
+                                                 AtomicInteger calls) {
+        Set<NodeMetadata> nodes = new HashSet<NodeMetadata>();
+        for (String region : regions) {
+            try {
+                for (DescribeInstancesParser.Instance instance : client.describeInstances(region, calls)) {
+                    NodeMetadata node = toNodeMetadata(region, instance);
+                    if (nodeFilter == null || nodeFilter.apply(node)) {
+                        nodes.add(node);
+                    }
+                }
+            } catch (IOException e) {
+                throw new HazelcastException("Failed to describe the instances in region " + region, e);
+            }
+        }
+        return nodes;
+    }
+
+    NodeMetadata toNodeMetadata(String region, DescribeInstancesParser.Instance instance) {
+        return new NodeMetadataBuilder()
+                .id(region + '/' + instance.id)
+                .providerId(instance.id)
+                .name(instance.tags.get(NAME_TAG))
+                .hostname(instance.privateDnsName)
+                .group(group(instance))
+                .location(zone(region, instance.availabilityZone))
+                .userMetadata(instance.tags)
+                .privateAddresses(addresses(instance.privateIpAddress))
+                .publicAddresses(addresses(instance.publicIpAddress))
+                .status(status(instance.state))
+                .build();
+    }
+
+    private static String group(DescribeInstancesParser.Instance instance) {
+        for (String securityGroup : instance.securityGroups) {
+            if (securityGroup.startsWith(GROUP_PREFIX)) {
+                return securityGroup.substring(GROUP_PREFIX.length());
+            }
+        }
+        return null;
+    }
+
+    private Location zone(String region, String zone) {
+        if (zone == null) {
+            return null;
+        }
+        Location location = zones.get(zone);
+        if (location == null) {
+            Location parent = new LocationBuilder().scope(LocationScope.REGION).id(region).description(region).build();
+            location = new LocationBuilder().scope(LocationScope.ZONE).id(zone).description(zone).parent(parent).build();
+            zones.putIfAbsent(zone, location);
+        }
+        return location;
+    }
+
+    private static Set<String> addresses(String address) {
+        return address != null ? Collections.singleton(address) : Collections.<String>emptySet();
+    }
+
+    private static NodeMetadata.Status status(String state) {
+        if ("running".equals(state)) {
+            return NodeMetadata.Status.RUNNING;
+        } else if ("pending".equals(state)) {
+            return NodeMetadata.Status.PENDING;
+        } else if ("stopping".equals(state) || "stopped".equals(state)) {
+            return NodeMetadata.Status.SUSPENDED;
+        } else if ("shutting-down".equals(state) || "terminated".equals(state)) {
+            return NodeMetadata.Status.TERMINATED;
+        }
+        return NodeMetadata.Status.UNRECOGNIZED;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.jclouds;
+
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.Multimap;
+import org.jclouds.compute.ComputeService;
+import org.jclouds.compute.ComputeServiceContext;
+import org.jclouds.compute.domain.ComputeMetadata;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.ec2.EC2Api;
+import org.jclouds.ec2.compute.functions.RunningInstanceToNodeMetadata;
+import org.jclouds.ec2.domain.Reservation;
+import org.jclouds.ec2.domain.RunningInstance;
+import org.jclouds.ec2.features.InstanceApi;
+
+import java.util.AbstractMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes the tag and zone filters down to EC2 as {@code DescribeInstances} filters, so only the
+ * running instances carrying the configured tags are transferred and converted to nodes. The regions
+ * are the ones configured on the jclouds context. The client side filter is still applied to the result.
+ */
+final class Ec2NodeLister implements NodeLister {
+
+    static final String INSTANCE_STATE_FILTER = "instance-state-name";
+    static final String AVAILABILITY_ZONE_FILTER = "availability-zone";
+    static final String TAG_FILTER_PREFIX = "tag:";
+
+    private static final String RUNNING = "running";
+
+    private final Multimap<String, String> filter;
+
+    Ec2NodeLister(List<AbstractMap.SimpleImmutableEntry> tagPairs, Set<String> zones) {
+        this.filter = buildFilter(tagPairs, zones);
+    }
+
+    Multimap<String, String> getFilter() {
+        return filter;
+    }
+
+    @Override
+    public Set<? extends NodeMetadata> listNodes(ComputeService computeService, Predicate<ComputeMetadata> nodeFilter,
+                                                 AtomicInteger calls) {
+        ComputeServiceContext context = computeService.getContext();
+        Function<RunningInstance, NodeMetadata> converter = context.utils().injector()
+                .getInstance(RunningInstanceToNodeMetadata.class);
+        return listNodes(context.unwrapApi(EC2Api.class), converter, nodeFilter, calls);
+    }
+
+    Set<NodeMetadata> listNodes(EC2Api api, Function<RunningInstance, NodeMetadata> converter,
+                                Predicate<ComputeMetadata> nodeFilter, AtomicInteger calls) {
+        InstanceApi instanceApi = api.getInstanceApi().get();
+        Set<NodeMetadata> nodes = new HashSet<NodeMetadata>();
+        for (String region : api.getConfiguredRegions()) {
+            calls.incrementAndGet();
+            for (Reservation<? extends RunningInstance> reservation
+                    : instanceApi.describeInstancesInRegionWithFilter(region, filter)) {
+                for (RunningInstance instance : reservation) {
+                    NodeMetadata node = converter.apply(instance);
+                    if (node != null && (nodeFilter == null || nodeFilter.apply(node))) {
+                        nodes.add(node);
+                    }
+                }
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * @param zones the availability zones
+     * @return the regions of the zones, in the order of the zones
+     */
+    static Set<String> regionsOf(Set<String> zones) {
+        Set<String> regions = new LinkedHashSet<String>();
+        for (String zone : zones) {
+            // availability zones are named after their region followed by a letter
+            regions.add(zone.substring(0, zone.length() - 1));
+        }
+        return regions;
+    }
+
+    static Multimap<String, String> buildFilter(List<AbstractMap.SimpleImmutableEntry> tagPairs, Set<String> zones) {
+        ImmutableMultimap.Builder<String, String> builder = ImmutableMultimap.builder();
+        builder.put(INSTANCE_STATE_FILTER, RUNNING);
+        for (AbstractMap.SimpleImmutableEntry tagPair : tagPairs) {
+            builder.put(TAG_FILTER_PREFIX + tagPair.getKey(), (String) tagPair.getValue());
+        }
+        builder.putAll(AVAILABILITY_ZONE_FILTER, zones);
+        return builder.build();
+    }
+}
@@ -0,0 +1,335 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.jclouds;
+
+import com.google.common.collect.Iterables;
+import com.hazelcast.config.InvalidConfigurationException;
+import com.hazelcast.config.properties.PropertyDefinition;
+import com.hazelcast.config.properties.ValueValidator;
+import com.hazelcast.core.HazelcastException;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+import org.jclouds.compute.ComputeService;
+import org.jclouds.compute.domain.NodeMetadata;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Lists the nodes of several sources, each with its own provider, credentials and filters, for clusters spanning
+ * accounts or clouds. The sources are queried at the same time with a deadline each: a source which fails or does
+ * not answer in time contributes the nodes it listed last, so it does not hold back the other sources. A source
+ * which fails to build is left out until it builds. The nodes are merged in the order of the sources and
+ * deduplicated by their private and public address, as accounts and clouds commonly reuse private ranges.
+ */
+final class FederatedComputeServiceBuilder extends ComputeServiceBuilder {
+
+    static final List<PropertyDefinition> SOURCES = Arrays.asList(JCloudsProperties.SOURCE_1,
+            JCloudsProperties.SOURCE_2, JCloudsProperties.SOURCE_3, JCloudsProperties.SOURCE_4);
+
+    /**
+     * The properties a source may set, the strategy level properties such as caching apply to the merged nodes.
+     */
+    static final List<PropertyDefinition> SOURCE_PROPERTIES = Arrays.asList(JCloudsProperties.PROVIDER,
+            JCloudsProperties.ENDPOINT, JCloudsProperties.IDENTITY, JCloudsProperties.CREDENTIAL,
+            JCloudsProperties.CREDENTIAL_PATH, JCloudsProperties.ROLE_NAME, JCloudsProperties.REGIONS,
+            JCloudsProperties.ZONES, JCloudsProperties.GROUP, JCloudsProperties.TAG_KEYS, JCloudsProperties.TAG_VALUES,
+            JCloudsProperties.FAN_OUT_THREADS, JCloudsProperties.FAN_OUT_TIMEOUT_SECONDS,
+            JCloudsProperties.FILTER_PUSH_DOWN, JCloudsProperties.HTTP_CONNECT_TIMEOUT_MILLIS,
+            JCloudsProperties.HTTP_READ_TIMEOUT_MILLIS, JCloudsProperties.HTTP_MAX_CONNECTIONS_PER_HOST,
+            JCloudsProperties.HTTP_KEEP_ALIVE_SECONDS, JCloudsProperties.HTTP_GZIP, JCloudsProperties.HTTP_DRIVER,
+            JCloudsProperties.ENGINE);
+
+    private static final ILogger LOGGER = Logger.getLogger(FederatedComputeServiceBuilder.class);
+    private static final int DEFAULT_SOURCE_TIMEOUT_SECONDS = 10;
+    private static final long MILLIS_PER_SECOND = 1000L;
+
+    private final List<Source> sources = new ArrayList<Source>();
+    private final long timeoutMillis;
+    private final ExecutorService executor;
+
+    FederatedComputeServiceBuilder(Map<String, Comparable> properties) {
+        this(properties, newSourceBuilders(properties), sourceTimeoutMillis(properties));
+    }
+
+    FederatedComputeServiceBuilder(Map<String, Comparable> properties, Map<String, ComputeServiceBuilder> builders,
+                                   long timeoutMillis) {
+        super(properties);
+        for (Map.Entry<String, ComputeServiceBuilder> entry : builders.entrySet()) {
+            sources.add(new Source(entry.getKey(), entry.getValue()));
+        }
+        this.timeoutMillis = timeoutMillis;
+        int poolSize = Math.max(1, builders.size());
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory("hz.jclouds.federated-discovery"));
+    }
+
+    /**
+     * @param properties the strategy properties
+     * @return {@code true} if at least one source of the federated mode is configured
+     */
+    static boolean isFederated(Map<String, Comparable> properties) {
+        for (PropertyDefinition source : SOURCES) {
+            if (properties.get(source.key()) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static Map<String, ComputeServiceBuilder> newSourceBuilders(Map<String, Comparable> properties) {
+        Map<String, ComputeServiceBuilder> builders = new LinkedHashMap<String, ComputeServiceBuilder>();
+        for (PropertyDefinition source : SOURCES) {
+            String value = (String) properties.get(source.key());
+            if (value != null) {
+                builders.put(source.key(), new ComputeServiceBuilder(sourceProperties(properties, source.key(), value)));
+            }
+        }
+        return builders;
+    }
+
+    /**
+     * Parses the {@code key=value;key=value} definition of a source over the top level properties.
+     *
+     * @param properties the top level properties
+     * @param name       the name of the source, used in error messages
+     * @param definition the definition of the source
+     * @return the properties of the source
+     */
+    static Map<String, Comparable> sourceProperties(Map<String, Comparable> properties, String name, String definition) {
+        Map<String, Comparable> result = new HashMap<String, Comparable>(properties);
+        for (PropertyDefinition source : SOURCES) {
+            result.remove(source.key());
+        }
+        result.remove(JCloudsProperties.SOURCE_TIMEOUT_SECONDS.key());
+        for (String pair : definition.split(";")) {
+            if (pair.trim().isEmpty()) {
+                continue;
+            }
+            int separator = pair.indexOf('=');
+            if (separator <= 0) {
+                throw new InvalidConfigurationException(name + " must consist of key=value pairs separated by ';'");
+            }
+            String key = pair.substring(0, separator).trim();
+            result.put(key, convert(name, sourceProperty(name, key), pair.substring(separator + 1).trim()));
+        }
+        return result;
+    }
+
+    private static PropertyDefinition sourceProperty(String name, String key) {
+        for (PropertyDefinition property : SOURCE_PROPERTIES) {
+            if (property.key().equals(key)) {
+                return property;
+            }
+        }
+        throw new InvalidConfigurationException("Property '" + key + "' is not supported in " + name);
+    }
+
+    private static Comparable convert(String name, PropertyDefinition property, String value) {
+        try {
+            Comparable converted = property.typeConverter().convert(value);
+            ValueValidator validator = property.validator();
+            if (validator != null) {
+                validator.validate(converted);
+            }
+            return converted;
+        } catch (RuntimeException e) {
+            throw new InvalidConfigurationException("Invalid value of '" + property.key() + "' in " + name + ": "
+                    + e.getMessage());
+        }
+    }
+
+    private static long sourceTimeoutMillis(Map<String, Comparable> properties) {
+        Comparable value = properties.get(JCloudsProperties.SOURCE_TIMEOUT_SECONDS.key());
+        int seconds = value != null ? (Integer) value : DEFAULT_SOURCE_TIMEOUT_SECONDS;
+        return seconds * MILLIS_PER_SECOND;
+    }
+
+    @Override
+    void setMetrics(DiscoveryMetrics metrics) {
+        super.setMetrics(metrics);
+        for (Source source : sources) {
+            source.builder.setMetrics(metrics);
+        }
+    }
+
+    /**
+     * Builds the compute service of each source. A source which fails to build is destroyed and built again by its
+     * next query.
+     *
+     * @return always {@code null}, the nodes are listed by the sources
+     */
+    @Override
+    ComputeService build() {
+        for (Source source : sources) {
+            try {
+                source.build();
+            } catch (RuntimeException e) {
+                LOGGER.warning("Failed to build " + source.name + ", leaving it out until it builds. Cause: " + e);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Lists the nodes of all sources concurrently and merges them.
+     *
+     * @return the running nodes of all sources, deduplicated by their private and public address
+     * @throws HazelcastException if none of the sources could be queried
+     */
+    @Override
+    public Iterable<? extends NodeMetadata> getFilteredNodes() {
+        List<Future<List<NodeMetadata>>> calls = new ArrayList<Future<List<NodeMetadata>>>();
+        for (Source source : sources) {
+            calls.add(source.query(executor));
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        Map<String, NodeMetadata> merged = new LinkedHashMap<String, NodeMetadata>();
+        int answered = 0;
+        for (int i = 0; i < sources.size(); i++) {
+            List<NodeMetadata> nodes = await(sources.get(i), calls.get(i), deadline);
+            if (nodes == null) {
+                continue;
+            }
+            answered++;
+            for (NodeMetadata node : nodes) {
+                // the strategy skips nodes which are not running, they must not hide a running node with the same address
+                String key = dedupKey(node);
+                if (node.getStatus() == NodeMetadata.Status.RUNNING && !merged.containsKey(key)) {
+                    merged.put(key, node);
+                }
+            }
+        }
+        if (answered == 0) {
+            throw new HazelcastException("None of the sources " + sourceNames() + " could be queried for nodes");
+        }
+        return new ArrayList<NodeMetadata>(merged.values());
+    }
+
+    private List<NodeMetadata> await(Source source, Future<List<NodeMetadata>> call, long deadline) {
+        try {
+            if (timeoutMillis <= 0) {
+                return call.get();
+            }
+            return call.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            LOGGER.warning("Listing nodes of " + source.name + " did not complete within " + timeoutMillis + " ms, "
+                    + source.fallbackDescription());
+        } catch (ExecutionException e) {
+            LOGGER.warning("Listing nodes of " + source.name + " failed, " + source.fallbackDescription() + ". Cause: "
+                    + e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HazelcastException("Interrupted while listing nodes", e);
+        }
+        return source.lastNodes;
+    }
+
+    /**
+     * Identifies a node by its first private and public address, which JCloudsDiscoveryStrategy builds the
+     * discovery node of.
+     */
+    private static String dedupKey(NodeMetadata node) {
+        String privateAddress = Iterables.getFirst(node.getPrivateAddresses(), null);
+        String publicAddress = Iterables.getFirst(node.getPublicAddresses(), null);
+        if (privateAddress == null && publicAddress == null) {
+            return "id:" + node.getId();
+        }
+        return privateAddress + "/" + publicAddress;
+    }
+
+    private List<String> sourceNames() {
+        List<String> names = new ArrayList<String>();
+        for (Source source : sources) {
+            names.add(source.name);
+        }
+        return names;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+        for (Source source : sources) {
+            source.builder.destroy();
+        }
+    }
+
+    /**
+     * A source with its running listing call and the nodes it listed last. A source runs one call at a time,
+     * a call outliving its deadline is joined by the next discovery instead of piling up behind it.
+     */
+    private static final class Source {
+
+        private final String name;
+        private final ComputeServiceBuilder builder;
+        private volatile List<NodeMetadata> lastNodes;
+        private volatile boolean built;
+        private Future<List<NodeMetadata>> running;
+
+        Source(String name, ComputeServiceBuilder builder) {
+            this.name = name;
+            this.builder = builder;
+        }
+
+        void build() {
+            try {
+                builder.build();
+            } catch (RuntimeException e) {
+                // releases the contexts leased before the failure, so the next build starts from scratch
+                builder.destroy();
+                throw e;
+            }
+            built = true;
+        }
+
+        synchronized Future<List<NodeMetadata>> query(ExecutorService executor) {
+            if (running == null || running.isDone()) {
+                running = executor.submit(new Callable<List<NodeMetadata>>() {
+                    @Override
+                    public List<NodeMetadata> call() {
+                        if (!built) {
+                            build();
+                        }
+                        List<NodeMetadata> nodes = new ArrayList<NodeMetadata>();
+                        for (NodeMetadata node : builder.getFilteredNodes()) {
+                            nodes.add(node);
+                        }
+                        lastNodes = nodes;
+                        return nodes;
+                    }
+                });
+            }
+            return running;
+        }
+
+        String fallbackDescription() {
+            List<NodeMetadata> nodes = lastNodes;
+            return nodes != null ? "using the " + nodes.size() + " nodes it listed last" : "skipping it";
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.jclouds;
+
+import com.google.common.base.Predicate;
+import com.hazelcast.config.InvalidConfigurationException;
+import com.hazelcast.core.HazelcastException;
+import org.jclouds.compute.ComputeService;
+import org.jclouds.compute.domain.ComputeMetadata;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.NodeMetadataBuilder;
+import org.jclouds.domain.Location;
+import org.jclouds.domain.LocationBuilder;
+import org.jclouds.domain.LocationScope;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lists the nodes straight from the GCE API through {@link GceInstancesClient}, without a jclouds compute
+ * service, which is therefore not used. The configured tags are matched against the labels of the instances,
+ * the group against their {@code jclouds-group} label.
+ */
+final class GceDirectNodeLister implements NodeLister {
+
+    static final String GROUP_LABEL = "jclouds-group";
+
+    private static final String SERVICE_ACCOUNT_DOMAIN = ".iam.gserviceaccount.com";
+    private static final String DEVELOPER_ACCOUNT_DOMAIN = "@developer.gserviceaccount.com";
+
+    private final GceInstancesClient client;
+    private final ConcurrentMap<String, Location> zones = new ConcurrentHashMap<String, Location>();
+
+    GceDirectNodeLister(GceInstancesClient client) {
+        this.client = client;
+    }
+
+    /**
+     * Derives the project from the email of a service account, e.g. {@code name@project.iam.gserviceaccount.com}
+     * or {@code number-suffix@developer.gserviceaccount.com}.
+     *
+     * @param clientEmail the email of the service account
+     * @return the project of the account
+     * @throws InvalidConfigurationException if the email is not the one of a service account
+     */
+    static String projectOf(String clientEmail) {
+        int at = clientEmail.indexOf('@');
+        if (at > 0 && clientEmail.endsWith(SERVICE_ACCOUNT_DOMAIN)) {
+            return clientEmail.substring(at + 1, clientEmail.length() - SERVICE_ACCOUNT_DOMAIN.length());
+        }
+        int dash = clientEmail.indexOf('-');
+        if (dash > 0 && clientEmail.endsWith(DEVELOPER_ACCOUNT_DOMAIN)) {
+            return clientEmail.substring(0, dash);
+        }
+        throw new InvalidConfigurationException("The identity [" + clientEmail + "] is not a service account email");
+    }
+
+    @Override
+    public Set<? extends NodeMetadata> listNodes(ComputeService computeService, Predicate<ComputeMetadata> nodeFilter,
+                                                 AtomicInteger calls) {
+        Set<NodeMetadata> nodes = new HashSet<NodeMetadata>();
+        try {
+            for (GceInstancesClient.Instance instance : client.listInstances(calls)) {
+                NodeMetadata node = toNodeMetadata(instance);
+                if (nodeFilter == null || nodeFilter.apply(node)) {
+                    nodes.add(node);
+                }
+            }
+        } catch (IOException e) {
+            throw new HazelcastException("Failed to list the GCE instances", e);
+        }
+        return nodes;
+    }
+
+    NodeMetadata toNodeMetadata(GceInstancesClient.Instance instance) {
+        return new NodeMetadataBuilder()
+                .id(instance.zone + '/' + instance.name)
+                .providerId(instance.id)
+                .name(instance.name)
+                .hostname(instance.name)
+                .group(instance.labels.get(GROUP_LABEL))
+                .location(zone(instance.zone))
+                .userMetadata(instance.labels)
+                .privateAddresses(addresses(instance.privateIpAddress))
+                .publicAddresses(addresses(instance.publicIpAddress))
+                .status(status(instance.status))
+                .build();
+    }
+
+    private Location zone(String zone) {
+        if (zone == null) {
+            return null;
+        }
+        Location location = zones.get(zone);
+        if (location == null) {
+            // zones are named after their region followed by a dash and a letter
+            String region = zone.substring(0, zone.lastIndexOf('-'));
+            Location parent = new LocationBuilder().scope(LocationScope.REGION).id(region).description(region).build();
+            location = new LocationBuilder().scope(LocationScope.ZONE).id(zone).description(zone).parent(parent).build();
+            zones.putIfAbsent(zone, location);
+        }
+        return location;
+    }
+
+    private static Set<String> addresses(String address) {
+        return address != null ? Collections.singleton(address) : Collections.<String>emptySet();
+    }
+
+    private static NodeMetadata.Status status(String status) {
+        if ("RUNNING".equals(status)) {
+            return NodeMetadata.Status.RUNNING;
+        } else if ("PROVISIONING".equals(status) || "STAGING".equals(status)) {
+            return NodeMetadata.Status.PENDING;
+        } else if ("STOPPING".equals(status) || "SUSPENDING".equals(status) || "SUSPENDED".equals(status)
+                || "TERMINATED".equals(status)) {
+            // GCE reports stopped instances as terminated
+            return NodeMetadata.Status.SUSPENDED;
+        }
+        return NodeMetadata.Status.UNRECOGNIZED;
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.jclouds;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Supplier;
+import com.google.common.io.ByteStreams;
+import com.google.gson.stream.JsonReader;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.HttpResponseException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Calls the GCE {@code instances.aggregatedList} method directly and streams the JSON response into slim
+ * instance records. A {@code fields} projection limits the response to the name, zone, status, labels and
+ * addresses of the instances, a {@code filter} selects the running instances carrying the configured labels.
+ */
+final class GceInstancesClient {
+
+    static final String COMPUTE_ENDPOINT = "https://compute.googleapis.com/compute/v1";
+    static final String FIELDS = "items/*/instances(id,name,zone,status,labels,"
+            + "networkInterfaces(networkIP,accessConfigs(natIP))),nextPageToken";
+
+    private static final int MAX_RESULTS = 500;
+
+    private final String endpoint;
+    private final String project;
+    private final Supplier<String> accessToken;
+    private final String filter;
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+
+    /**
+     * @param endpoint             the compute API endpoint, {@code null} for the default one
+     * @param project              the project the instances belong to
+     * @param accessToken          the OAuth access token supplier
+     * @param labels               the labels the instances have to carry
+     * @param connectTimeoutMillis the connect timeout
+     * @param readTimeoutMillis    the read timeout
+     */
+    GceInstancesClient(String endpoint, String project, Supplier<String> accessToken,
+                       List<AbstractMap.SimpleImmutableEntry> labels, int connectTimeoutMillis, int readTimeoutMillis) {
+        this.endpoint = endpoint != null ? endpoint : COMPUTE_ENDPOINT;
+        this.project = project;
+        this.accessToken = accessToken;
+        this.filter = buildFilter(labels);
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+
+    String getFilter() {
+        return filter;
+    }
+
+    /**
+     * Lists the instances of all zones of the project matching the filter.
+     *
+     * @param calls incremented by the number of requested pages
+     * @return the instances of all pages
+     * @throws IOException           if the request fails
+     * @throws HttpResponseException if GCE answers with an error
+     */
+    List<Instance> listInstances(AtomicInteger calls) throws IOException {
+        List<Instance> instances = new ArrayList<Instance>();
+        String pageToken = null;
+        do {
+            calls.incrementAndGet();
+            pageToken = request(pageToken, instances);
+        } while (pageToken != null);
+        return instances;
+    }
+
+    private String request(String pageToken, List<Instance> instances) throws IOException {
+        String url = endpoint + "/projects/" + encode(project) + "/aggregated/instances?maxResults=" + MAX_RESULTS
+                + "&fields=" + encode(FIELDS) + "&filter=" + encode(filter)
+                + (pageToken != null ? "&pageToken=" + encode(pageToken) : "");
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setConnectTimeout(connectTimeoutMillis);
+        connection.setReadTimeout(readTimeoutMillis);
+        connection.setUseCaches(false);
+        connection.setRequestProperty("Authorization", "Bearer " + accessToken.get());
+        int status = connection.getResponseCode();
+        if (status != HttpURLConnection.HTTP_OK) {
+            throw new HttpResponseException("instances.aggregatedList of project " + project + " failed with HTTP status "
+                    + status, null, HttpResponse.builder().statusCode(status).build(), readError(connection));
+        }
+        InputStream in = connection.getInputStream();
+        try {
+            return readPage(new JsonReader(new InputStreamReader(in, Charsets.UTF_8)), instances);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Reads the error body, which also keeps the connection reusable.
+     */
+    static String readError(HttpURLConnection connection) throws IOException {
+        InputStream errorStream = connection.getErrorStream();
+        return errorStream != null ? new String(ByteStreams.toByteArray(errorStream), Charsets.UTF_8) : null;
+    }
+
+    private static String readPage(JsonReader reader, List<Instance> instances) throws IOException {
+        String nextPageToken = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("items".equals(name)) {
+                // the instances are grouped by zone, e.g. "zones/us-central1-a"
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    reader.nextName();
+                    readScope(reader, instances);
+                }
+                reader.endObject();
+            } else if ("nextPageToken".equals(name)) {
+                nextPageToken = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return nextPageToken;
+    }
+
+    private static void readScope(JsonReader reader, List<Instance> instances) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("instances".equals(reader.nextName())) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    instances.add(readInstance(reader));
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    private static Instance readInstance(JsonReader reader) throws IOException {
+        Instance instance = new Instance();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("labels".equals(name)) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    instance.labels.put(reader.nextName(), reader.nextString());
+                }
+                reader.endObject();
+            } else if ("networkInterfaces".equals(name)) {
+                readNetworkInterfaces(reader, instance);
+            } else {
+                instance.read(name, reader);
+            }
+        }
+        reader.endObject();
+        return instance;
+    }
+
+    /**
+     * Reads the addresses of the first network interface and its first access config.
+     */
+    private static void readNetworkInterfaces(JsonReader reader, Instance instance) throws IOException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if ("networkIP".equals(name) && instance.privateIpAddress == null) {
+                    instance.privateIpAddress = reader.nextString();
+                } else if ("accessConfigs".equals(name)) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        readAccessConfig(reader, instance);
+                    }
+                    reader.endArray();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        reader.endArray();
+    }
+
+    private static void readAccessConfig(JsonReader reader, Instance instance) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("natIP".equals(reader.nextName()) && instance.publicIpAddress == null) {
+                instance.publicIpAddress = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    private static String buildFilter(List<AbstractMap.SimpleImmutableEntry> labels) {
+        StringBuilder filter = new StringBuilder("(status = \"RUNNING\")");
+        for (AbstractMap.SimpleImmutableEntry label : labels) {
+            filter.append(" AND (labels.").append(label.getKey()).append(" = \"").append(label.getValue()).append("\")");
+        }
+        return filter.toString();
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8").replace("+", "%20");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException("UTF-8 is not supported", e);
+        }
+    }
+
+    /**
+     * The fields of a GCE instance the discovery needs.
+     */
+    static final class Instance {
+
+        String id;
+        String name;
+        String zone;
+        String status;
+        String privateIpAddress;
+        String publicIpAddress;
+        final Map<String, String> labels = new LinkedHashMap<String, String>();
+
+        private void read(String field, JsonReader reader) throws IOException {
+            if ("id".equals(field)) {
+                id = reader.nextString();
+            } else if ("name".equals(field)) {
+                name = reader.nextString();
+            } else if ("zone".equals(field)) {
+                // a URL ending with the zone name
+                String url = reader.nextString();
+                zone = url.substring(url.lastIndexOf('/') + 1);
+            } else if ("status".equals(field)) {
+                status = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.jclouds;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.Module;
+import com.hazelcast.config.InvalidConfigurationException;
+import org.jclouds.Constants;
+
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP transport settings of the cloud API calls. Timeouts and connection limits are passed to jclouds as
+ * overrides, the optional driver is installed as an additional Guice module. Settings only understood by
+ * the OkHttp driver are passed as overrides too, so they are part of the pooled context key.
+ */
+final class HttpTransport {
+
+    /**
+     * Driver name selecting the OkHttp driver with pooled keep-alive connections.
+     */
+    static final String OKHTTP_DRIVER = "okhttp";
+    static final String KEEP_ALIVE_MILLIS = "hazelcast.jclouds.http.keep-alive-millis";
+    static final String MAX_IDLE_CONNECTIONS = "hazelcast.jclouds.http.max-idle-connections";
+    static final String GZIP = "hazelcast.jclouds.http.gzip";
+    static final String DRIVER = "hazelcast.jclouds.http.driver";
+    static final int DEFAULT_TIMEOUT_MILLIS = 10000;
+    static final int DEFAULT_KEEP_ALIVE_SECONDS = 300;
+
+    private static final String OKHTTP_MODULE = "com.hazelcast.jclouds.OkHttpTransportModule";
+    private static final int DEFAULT_MAX_IDLE_CONNECTIONS = 5;
+
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+    private final int maxConnectionsPerHost;
+    private final int keepAliveSeconds;
+    private final boolean gzip;
+    private final String driver;
+
+    HttpTransport(int connectTimeoutMillis, int readTimeoutMillis, int maxConnectionsPerHost, int keepAliveSeconds,
+                  boolean gzip, String driver) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.keepAliveSeconds = keepAliveSeconds;
+        this.gzip = gzip;
+        this.driver = driver;
+    }
+
+    int getConnectTimeoutMillis() {
+        return connectTimeoutMillis;
+    }
+
+    int getReadTimeoutMillis() {
+        return readTimeoutMillis;
+    }
+
+    /**
+     * Adds the transport settings to the jclouds overrides.
+     *
+     * @param overrides the jclouds overrides
+     */
+    void applyTo(Properties overrides) {
+        overrides.setProperty(Constants.PROPERTY_CONNECTION_TIMEOUT, String.valueOf(connectTimeoutMillis));
+        overrides.setProperty(Constants.PROPERTY_SO_TIMEOUT, String.valueOf(readTimeoutMillis));
+        if (maxConnectionsPerHost > 0) {
+            overrides.setProperty(Constants.PROPERTY_MAX_CONNECTIONS_PER_HOST, String.valueOf(maxConnectionsPerHost));
+        }
+        int maxIdleConnections = maxConnectionsPerHost > 0 ? maxConnectionsPerHost : DEFAULT_MAX_IDLE_CONNECTIONS;
+        overrides.setProperty(MAX_IDLE_CONNECTIONS, String.valueOf(maxIdleConnections));
+        overrides.setProperty(KEEP_ALIVE_MILLIS, String.valueOf(TimeUnit.SECONDS.toMillis(keepAliveSeconds)));
+        overrides.setProperty(GZIP, String.valueOf(gzip));
+        if (driver != null) {
+            overrides.setProperty(DRIVER, driver);
+        }
+    }
+
+    /**
+     * Instantiates the configured driver module.
+     *
+     * @return the driver module, empty if the JDK driver is used
+     * @throws InvalidConfigurationException if the driver module cannot be instantiated
+     */
+    Set<Module> driverModules() {
+        if (driver == null) {
+            return ImmutableSet.of();
+        }
+        String className = OKHTTP_DRIVER.equals(driver) ? OKHTTP_MODULE : driver;
+        try {
+            Class<?> moduleClass = HttpTransport.class.getClassLoader().loadClass(className);
+            return ImmutableSet.of((Module) moduleClass.newInstance());
+        } catch (ClassNotFoundException e) {
+            throw new InvalidConfigurationException("HTTP driver [" + driver + "] is not on the classpath", e);
+        } catch (LinkageError e) {
+            throw new InvalidConfigurationException("HTTP driver [" + driver + "] is not on the classpath", e);
+        } catch (Exception e) {
+            throw new InvalidConfigurationException("Failed to instantiate HTTP driver [" + driver + "]", e);
+        }
+    }
+}
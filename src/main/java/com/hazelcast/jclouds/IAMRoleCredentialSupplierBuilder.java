@@ -20,12 +20,13 @@ import org.jclouds.aws.domain.SessionCredentials;
 
 import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.URL;
-import java.util.HashMap;
+import java.io.StringReader;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.TimeZone;
 
 import static com.hazelcast.util.Preconditions.isNotNull;
 
@@ -35,12 +36,19 @@ import static com.hazelcast.util.Preconditions.isNotNull;
  */
 public class IAMRoleCredentialSupplierBuilder {
 
-    private static final String IAM_ROLE_ENDPOINT = "169.254.169.254";
+    private static final MetadataClient METADATA_CLIENT = MetadataClient.forEc2(MetadataClient.EC2_ENDPOINT);
+    private static final String EXPIRATION_FORMAT = "yyyy-MM-dd'T'HH:mm:ss'Z'";
+    private final MetadataClient metadataClient;
     private String roleName;
     private SessionCredentials credentials;
-    private String query = "latest/meta-data/iam/security-credentials/";
+    private String query = "/latest/meta-data/iam/security-credentials/";
 
     public IAMRoleCredentialSupplierBuilder() {
+        this(METADATA_CLIENT);
+    }
+
+    IAMRoleCredentialSupplierBuilder(MetadataClient metadataClient) {
+        this.metadataClient = metadataClient;
     }
 
     public IAMRoleCredentialSupplierBuilder withRoleName(String roleName) {
@@ -60,31 +68,28 @@ public class IAMRoleCredentialSupplierBuilder {
 
     protected Map<String, String> getKeysFromIamRole() {
         try {
-            URL url = new URL("http", IAM_ROLE_ENDPOINT, query);
-            BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream(), "UTF-8"));
-            return parseIamRole(reader);
+            String response = metadataClient.get(query);
+            return parseIamRole(new BufferedReader(new StringReader(response)));
         } catch (IOException io) {
             throw new InvalidConfigurationException("Invalid Aws Configuration");
         }
     }
 
     protected Map<String, String> parseIamRole(BufferedReader reader) throws IOException {
-        Map<String, String> map = new HashMap<String, String>();
-        Pattern keyPattern = Pattern.compile("\"(.*?)\" : ");
-        Pattern valuePattern = Pattern.compile(" : \"(.*?)\",");
-        String line;
-        for (line = reader.readLine(); line != null; line = reader.readLine()) {
-            if (line.contains(":")) {
-                Matcher keyMatcher = keyPattern.matcher(line);
-                Matcher valueMatcher = valuePattern.matcher(line);
-                if (keyMatcher.find() && valueMatcher.find()) {
-                    String key = keyMatcher.group(1);
-                    String value = valueMatcher.group(1);
-                    map.put(key, value);
-                }
-            }
+        return JsonFieldReader.readStringFields(reader, null);
+    }
+
+    protected Date parseExpiration(String expiration) {
+        if (expiration == null) {
+            return null;
+        }
+        SimpleDateFormat format = new SimpleDateFormat(EXPIRATION_FORMAT, Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        try {
+            return format.parse(expiration);
+        } catch (ParseException e) {
+            return null;
         }
-        return map;
     }
 
     public SessionCredentials build() {
@@ -93,6 +98,7 @@ public class IAMRoleCredentialSupplierBuilder {
                 .accessKeyId(keyMaps.get("AccessKeyId"))
                 .secretAccessKey(keyMaps.get("SecretAccessKey"))
                 .sessionToken(keyMaps.get("Token"))
+                .expiration(parseExpiration(keyMaps.get("Expiration")))
                 .build();
         return credentials;
     }
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.jclouds;
+
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.hazelcast.spi.partitiongroup.PartitionGroupMetaData.PARTITION_GROUP_HOST;
+import static com.hazelcast.spi.partitiongroup.PartitionGroupMetaData.PARTITION_GROUP_ZONE;
+
+/**
+ * Reads the zone and host name of the local instance from the metadata service of the cloud provider,
+ * so the member does not have to list the whole fleet to find itself. The result is read once and
+ * kept for the lifetime of the member.
+ */
+class InstanceMetadataSource {
+
+    private static final ILogger LOGGER = Logger.getLogger(InstanceMetadataSource.class);
+
+    private final MetadataClient client;
+    private final String zonePath;
+    private final String hostnamePath;
+
+    private volatile Map<String, Object> metadata;
+
+    InstanceMetadataSource(MetadataClient client, String zonePath, String hostnamePath) {
+        this.client = client;
+        this.zonePath = zonePath;
+        this.hostnamePath = hostnamePath;
+    }
+
+    /**
+     * Creates the metadata source for the given provider.
+     *
+     * @param cloudProvider the jclouds provider id
+     * @return the metadata source or {@code null} if the provider has no supported metadata service
+     */
+    static InstanceMetadataSource forProvider(String cloudProvider) {
+        if ("aws-ec2".equals(cloudProvider) || "openstack-nova".equals(cloudProvider)) {
+            // OpenStack serves the EC2 compatible metadata paths
+            return forEc2(MetadataClient.EC2_ENDPOINT);
+        }
+        if ("google-compute-engine".equals(cloudProvider)) {
+            return forGce(MetadataClient.GCE_ENDPOINT);
+        }
+        return null;
+    }
+
+    static InstanceMetadataSource forEc2(String endpoint) {
+        return new InstanceMetadataSource(MetadataClient.forEc2(endpoint), "/latest/meta-data/placement/availability-zone",
+                "/latest/meta-data/local-hostname");
+    }
+
+    static InstanceMetadataSource forGce(String endpoint) {
+        return new InstanceMetadataSource(MetadataClient.forGce(endpoint), "/computeMetadata/v1/instance/zone",
+                "/computeMetadata/v1/instance/hostname");
+    }
+
+    /**
+     * Returns the zone and host name of the local instance as partition group metadata. The metadata
+     * service is only queried on the first call.
+     *
+     * @return the metadata, empty if the metadata service is not reachable
+     */
+    Map<String, Object> getMetadata() {
+        Map<String, Object> result = metadata;
+        if (result == null) {
+            synchronized (this) {
+                result = metadata;
+                if (result == null) {
+                    result = Collections.unmodifiableMap(readMetadata());
+                    metadata = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private Map<String, Object> readMetadata() {
+        Map<String, Object> result = new HashMap<String, Object>();
+        try {
+            String zone = client.get(zonePath);
+            // GCE answers with projects/<project>/zones/<zone>
+            result.put(PARTITION_GROUP_ZONE, zone.substring(zone.lastIndexOf('/') + 1));
+            result.put(PARTITION_GROUP_HOST, client.get(hostnamePath));
+        } catch (IOException e) {
+            LOGGER.fine("Instance metadata service is not available. Cause: " + e.getMessage());
+            result.clear();
+        }
+        return result;
+    }
+}
@@ -24,30 +24,70 @@ import com.hazelcast.spi.discovery.AbstractDiscoveryStrategy;
 import com.hazelcast.spi.discovery.DiscoveryNode;
 import com.hazelcast.spi.discovery.DiscoveryStrategy;
 import com.hazelcast.spi.discovery.SimpleDiscoveryNode;
+import com.hazelcast.util.EmptyStatement;
 import org.jclouds.compute.domain.NodeMetadata;
-import org.jclouds.domain.Location;
-import org.jclouds.domain.LocationScope;
 
 import java.net.InetAddress;
-import java.net.NetworkInterface;
-import java.net.UnknownHostException;
 import java.util.ArrayList;
-import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.hazelcast.spi.partitiongroup.PartitionGroupMetaData.PARTITION_GROUP_HOST;
 import static com.hazelcast.spi.partitiongroup.PartitionGroupMetaData.PARTITION_GROUP_ZONE;
+import static com.hazelcast.util.ExceptionUtil.rethrow;
+import static com.hazelcast.util.Preconditions.checkNotNull;
 
 /**
  * JClouds implementation of {@link DiscoveryStrategy}
  */
+@SuppressWarnings("checkstyle:classdataabstractioncoupling")
 public class JCloudsDiscoveryStrategy extends AbstractDiscoveryStrategy {
 
     private static final ILogger LOGGER = Logger.getLogger(JCloudsDiscoveryStrategy.class);
+    private static final int MILLIS_PER_SECOND = 1000;
+    private static final int ADDRESS_RESOLVER_THREADS = 4;
+    private static final long ADDRESS_CACHE_TTL_MILLIS = 60000;
+    private static final long ADDRESS_RESOLVE_TIMEOUT_MILLIS = 5000;
+    private static final int ADDRESS_CACHE_SIZE = 1024;
+    private static final long LOCAL_ADDRESSES_RESCAN_MILLIS = 60000;
+    private static final long THROTTLING_BACKOFF_BASE_MILLIS = 1000;
+    private static final long THROTTLING_BACKOFF_CAP_MILLIS = 120000;
+    private static final int DEFAULT_START_TIMEOUT_SECONDS = 60;
     private final ComputeServiceBuilder computeServiceBuilder;
-    private final Map<String, Object> memberMetaData = new HashMap<String, Object>();
+    private final AddressMapper addressMapper = new AddressMapper(ADDRESS_RESOLVER_THREADS, ADDRESS_CACHE_TTL_MILLIS,
+            ADDRESS_RESOLVE_TIMEOUT_MILLIS, ADDRESS_CACHE_SIZE);
+    private final LocationResolver locationResolver = new LocationResolver();
+    private final LocalAddresses localAddresses = new LocalAddresses(LOCAL_ADDRESSES_RESCAN_MILLIS);
+    private final Map<String, Object> memberMetaData = new ConcurrentHashMap<String, Object>();
+    private final DiscoveryNodesCache nodesCache;
+    private final DiscoveryNodesDelta nodesDelta = new DiscoveryNodesDelta();
+    private final AtomicBoolean localNodeLookedUp = new AtomicBoolean();
+    private final DiscoveryMetrics metrics = new DiscoveryMetrics();
+    private final NodesSnapshotFile snapshotFile;
+    private final long startTimeoutMillis;
+    private final ThrottlingBackoff backoff = new ThrottlingBackoff(THROTTLING_BACKOFF_BASE_MILLIS,
+            THROTTLING_BACKOFF_CAP_MILLIS);
+    private final SingleFlight<List<DiscoveryNode>> discovery = new SingleFlight<List<DiscoveryNode>>(
+            new Callable<List<DiscoveryNode>>() {
+                @Override
+                public List<DiscoveryNode> call() {
+                    return queryNodes();
+                }
+            });
+    private InstanceMetadataSource instanceMetadataSource;
+    private volatile List<DiscoveryNode> warmUpNodes;
+    private volatile FutureTask<Void> contextStart;
+    private volatile List<DiscoveryNode> lastDiscoveredNodes;
 
     /**
      * Instantiates a new JCloudsDiscoveryStrategy
@@ -55,74 +95,326 @@ public class JCloudsDiscoveryStrategy extends AbstractDiscoveryStrategy {
      * @param properties the properties
      */
     public JCloudsDiscoveryStrategy(Map<String, Comparable> properties) {
-        super(LOGGER, properties);
-        this.computeServiceBuilder = new ComputeServiceBuilder(properties);
+        this(newComputeServiceBuilder(properties), properties);
     }
 
     protected JCloudsDiscoveryStrategy(ComputeServiceBuilder computeServiceBuilder) {
-        super(LOGGER, new HashMap<String, Comparable>());
+        this(computeServiceBuilder, new HashMap<String, Comparable>());
+    }
+
+    JCloudsDiscoveryStrategy(ComputeServiceBuilder computeServiceBuilder, Map<String, Comparable> properties) {
+        super(LOGGER, properties);
         this.computeServiceBuilder = computeServiceBuilder;
+        this.computeServiceBuilder.setMetrics(metrics);
+        this.nodesCache = newNodesCache();
+        this.snapshotFile = NodesSnapshotFile.forPath((String) getOrNull(JCloudsProperties.SNAPSHOT_FILE));
+        this.startTimeoutMillis = (long) getOrDefault(JCloudsProperties.START_TIMEOUT_SECONDS, DEFAULT_START_TIMEOUT_SECONDS)
+                * MILLIS_PER_SECOND;
+        if (getOrDefault(JCloudsProperties.USE_INSTANCE_METADATA, true)) {
+            this.instanceMetadataSource = InstanceMetadataSource.forProvider((String) getOrNull(JCloudsProperties.PROVIDER));
+        }
+    }
+
+    private static ComputeServiceBuilder newComputeServiceBuilder(Map<String, Comparable> properties) {
+        return FederatedComputeServiceBuilder.isFederated(properties)
+                ? new FederatedComputeServiceBuilder(properties)
+                : new ComputeServiceBuilder(properties);
     }
 
     @Override
     public void start() {
-        this.computeServiceBuilder.build();
+        startContext();
+        if (getOrDefault(JCloudsProperties.METRICS_JMX_ENABLED, false)) {
+            metrics.registerMBean();
+        }
+        if (nodesCache != null) {
+            nodesCache.start();
+        }
+        if (snapshotFile != null) {
+            warmUp();
+        }
     }
 
     @Override
     public Iterable<DiscoveryNode> discoverNodes() {
-        List<DiscoveryNode> discoveryNodes = new ArrayList<DiscoveryNode>();
+        List<DiscoveryNode> warmUp = warmUpNodes;
+        if (warmUp != null) {
+            return warmUp;
+        }
         try {
-            Iterable<? extends NodeMetadata> nodes = computeServiceBuilder.getFilteredNodes();
-            for (NodeMetadata metadata : nodes) {
-                if (metadata.getStatus() != NodeMetadata.Status.RUNNING) {
-                    continue;
-                }
-                discoveryNodes.add(buildDiscoveredNode(metadata));
+            return nodesCache != null ? nodesCache.get() : fetchNodes();
+        } catch (InvalidConfigurationException e) {
+            // a misconfiguration must not be hidden behind previously discovered nodes
+            throw e;
+        } catch (HazelcastException e) {
+            List<DiscoveryNode> lastKnown = lastKnownNodes();
+            if (lastKnown == null) {
+                throw e;
             }
-            if (discoveryNodes.isEmpty()) {
-                LOGGER.warning("No running nodes discovered in configured cloud provider.");
-            } else {
-                StringBuilder sb = new StringBuilder("Discovered the following nodes with public IPS:\n");
-                for (DiscoveryNode node : discoveryNodes) {
-                    sb.append("    ").append(node.getPublicAddress().toString()).append("\n");
+            LOGGER.warning("Failed to discover nodes, returning " + lastKnown.size() + " previously discovered nodes. Cause: "
+                    + e.getMessage());
+            return lastKnown;
+        }
+    }
+
+    /**
+     * Builds the jclouds context in the background, so the member start continues meanwhile. The first
+     * discovery waits for it. Without a start timeout the context is built right away.
+     */
+    private void startContext() {
+        if (startTimeoutMillis <= 0) {
+            computeServiceBuilder.build();
+            return;
+        }
+        FutureTask<Void> task = new FutureTask<Void>(new Runnable() {
+            @Override
+            public void run() {
+                computeServiceBuilder.build();
+            }
+        }, null);
+        contextStart = task;
+        new DaemonThreadFactory("hz.jclouds.discovery-start").newThread(task).start();
+    }
+
+    /**
+     * Waits for the jclouds context built in the background, at most for the start timeout.
+     */
+    private void awaitContext() {
+        FutureTask<Void> task = contextStart;
+        if (task == null) {
+            return;
+        }
+        try {
+            task.get(startTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HazelcastException("Interrupted while waiting for the jclouds context", e);
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        } catch (TimeoutException e) {
+            throw new HazelcastException("The jclouds context is not built after " + startTimeoutMillis + " ms");
+        }
+    }
+
+    /**
+     * Returns the last discovered nodes while the cloud provider throttles requests, otherwise the nodes
+     * persisted in the snapshot file.
+     *
+     * @return the last known nodes or {@code null} if there are none
+     */
+    private List<DiscoveryNode> lastKnownNodes() {
+        List<DiscoveryNode> lastKnown = backoff.remainingMillis() > 0 ? lastDiscoveredNodes : null;
+        if (lastKnown == null && snapshotFile != null) {
+            lastKnown = snapshotFile.load();
+        }
+        return lastKnown;
+    }
+
+    /**
+     * Serves the persisted nodes while the first discovery runs in the background.
+     */
+    private void warmUp() {
+        List<DiscoveryNode> persisted = snapshotFile.load();
+        if (persisted == null) {
+            return;
+        }
+        LOGGER.info("Returning " + persisted.size() + " nodes persisted in " + snapshotFile.getFile()
+                + " until the first discovery completes");
+        if (nodesCache != null) {
+            nodesCache.prime(persisted);
+            return;
+        }
+        warmUpNodes = persisted;
+        new DaemonThreadFactory("hz.jclouds.discovery-warm-up").newThread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    fetchNodes();
+                } catch (RuntimeException e) {
+                    LOGGER.warning("Failed to discover nodes in the background. Cause: " + e.getMessage());
+                } finally {
+                    warmUpNodes = null;
                 }
-                LOGGER.finest(sb.toString());
             }
+        }).start();
+    }
+
+    private DiscoveryNodesCache newNodesCache() {
+        int ttlSeconds = getOrDefault(JCloudsProperties.CACHE_TTL_SECONDS, 0);
+        if (ttlSeconds <= 0) {
+            return null;
+        }
+        int refreshIntervalSeconds = getOrDefault(JCloudsProperties.REFRESH_INTERVAL_SECONDS, 0);
+        return new DiscoveryNodesCache(new Callable<List<DiscoveryNode>>() {
+            @Override
+            public List<DiscoveryNode> call() {
+                return fetchNodes();
+            }
+        }, (long) ttlSeconds * MILLIS_PER_SECOND, (long) refreshIntervalSeconds * MILLIS_PER_SECOND);
+    }
+
+    /**
+     * Registers a listener which is notified about the nodes added, removed or changed
+     * between two successive discoveries.
+     *
+     * @param listener the listener
+     */
+    public void addNodeListener(DiscoveryNodeListener listener) {
+        checkNotNull(listener, "listener cannot be null");
+        nodesDelta.addListener(listener);
+    }
+
+    /**
+     * Removes a previously registered listener.
+     *
+     * @param listener the listener
+     * @return {@code true} if the listener was registered
+     */
+    public boolean removeNodeListener(DiscoveryNodeListener listener) {
+        return nodesDelta.removeListener(listener);
+    }
+
+    /**
+     * Queries the cloud for the nodes, concurrent callers share a single query.
+     */
+    private List<DiscoveryNode> fetchNodes() {
+        return discovery.execute();
+    }
+
+    private List<DiscoveryNode> queryNodes() {
+        awaitContext();
+        long backoffMillis = backoff.remainingMillis();
+        if (backoffMillis > 0) {
+            throw new HazelcastException("The cloud provider throttles requests, not querying it for another "
+                    + backoffMillis + " ms");
+        }
+        try {
+            List<DiscoveryNode> discoveryNodes = listNodes();
+            localNodeLookedUp.set(true);
+            backoff.onSuccess();
+            lastDiscoveredNodes = discoveryNodes;
+            return discoveryNodes;
         } catch (Exception e) {
+            metrics.recordFailure();
+            if (ThrottlingBackoff.isThrottling(e)) {
+                LOGGER.warning("The cloud provider throttles requests, backing off for " + backoff.onThrottled() + " ms");
+            }
             throw new HazelcastException("Failed to get registered addresses", e);
         }
+    }
+
+    private List<DiscoveryNode> listNodes() {
+        Map<String, DiscoveryNode> nodesById = new LinkedHashMap<String, DiscoveryNode>();
+        List<NodeMetadata> runningNodes = new ArrayList<NodeMetadata>();
+        List<String> addresses = new ArrayList<String>();
+        for (NodeMetadata metadata : computeServiceBuilder.getFilteredNodes()) {
+            if (metadata.getStatus() != NodeMetadata.Status.RUNNING) {
+                continue;
+            }
+            runningNodes.add(metadata);
+            addresses.add(firstAddress(metadata.getPrivateAddresses()));
+            addresses.add(firstAddress(metadata.getPublicAddresses()));
+        }
+        long mapStart = System.nanoTime();
+        Map<String, InetAddress> mappedAddresses = addressMapper.map(addresses);
+        Set<InetAddress> local = localAddresses.getAddresses();
+        for (NodeMetadata metadata : runningNodes) {
+            DiscoveryNode node = buildDiscoveredNode(metadata, mappedAddresses, local);
+            if (node != null) {
+                nodesById.put(metadata.getId(), node);
+            }
+        }
+        List<DiscoveryNode> discoveryNodes = new ArrayList<DiscoveryNode>(nodesById.values());
+        metrics.recordMap(System.nanoTime() - mapStart, discoveryNodes.size(), runningNodes.size() - nodesById.size());
+        nodesDelta.apply(nodesById);
+        if (discoveryNodes.isEmpty()) {
+            LOGGER.warning("No running nodes discovered in configured cloud provider.");
+        } else {
+            logDiscoveredNodes(discoveryNodes);
+            if (snapshotFile != null) {
+                snapshotFile.write(discoveryNodes);
+            }
+        }
         return discoveryNodes;
     }
 
+    private static void logDiscoveredNodes(List<DiscoveryNode> discoveryNodes) {
+        StringBuilder sb = new StringBuilder("Discovered the following nodes with public IPS:\n");
+        for (DiscoveryNode node : discoveryNodes) {
+            sb.append("    ").append(node.getPublicAddress().toString()).append("\n");
+        }
+        LOGGER.finest(sb.toString());
+    }
+
     @Override
     public void destroy() {
+        if (nodesCache != null) {
+            nodesCache.shutdown();
+        }
+        addressMapper.shutdown();
+        metrics.unregisterMBean();
+        try {
+            // the context leased by a running start would not be released otherwise
+            awaitContext();
+        } catch (RuntimeException e) {
+            EmptyStatement.ignore(e);
+        }
         computeServiceBuilder.destroy();
     }
 
     @Override
     public Map<String, Object> discoverLocalMetadata() {
-        if (memberMetaData.size() == 0) {
+        if (memberMetaData.isEmpty() && instanceMetadataSource != null) {
+            memberMetaData.putAll(instanceMetadataSource.getMetadata());
+        }
+        // a live discovery fills in the metadata if it finds the local node, there is no point in repeating it,
+        // but failed discoveries and nodes served from the cache or snapshot have not looked for the local node
+        if (memberMetaData.isEmpty() && !localNodeLookedUp.get()) {
             discoverNodes();
         }
         return memberMetaData;
     }
 
-    private DiscoveryNode buildDiscoveredNode(NodeMetadata metadata) {
+    /**
+     * Returns the current discovery metrics: latencies of listing, filtering and mapping the nodes,
+     * the number of listing calls, discovered and filtered nodes and failed discoveries.
+     *
+     * @return a snapshot of the discovery metrics
+     */
+    public DiscoveryMetricsSnapshot getMetrics() {
+        return metrics.snapshot();
+    }
+
+    void setInstanceMetadataSource(InstanceMetadataSource instanceMetadataSource) {
+        this.instanceMetadataSource = instanceMetadataSource;
+    }
+
+    private DiscoveryNode buildDiscoveredNode(NodeMetadata metadata, Map<String, InetAddress> mappedAddresses,
+                                              Set<InetAddress> local) {
         Address privateAddressInstance = null;
-        if (!metadata.getPrivateAddresses().isEmpty()) {
-            InetAddress privateAddress = mapAddress(metadata.getPrivateAddresses().iterator().next());
+        String privateAddressName = firstAddress(metadata.getPrivateAddresses());
+        if (privateAddressName != null) {
+            InetAddress privateAddress = mappedAddresses.get(privateAddressName);
+            if (privateAddress == null) {
+                LOGGER.warning("Skipping node " + metadata.getId() + ", address '" + privateAddressName + "' is unresolvable");
+                return null;
+            }
             privateAddressInstance = new Address(privateAddress, computeServiceBuilder.getServicePort());
-            if (privateAddress.getHostAddress().equals(getLocalHostAddress())) {
+            if (local.contains(privateAddress)) {
                 fetchMemberMetaData(metadata);
             }
         }
 
         Address publicAddressInstance = null;
-        if (!metadata.getPublicAddresses().isEmpty()) {
-            InetAddress publicAddress = mapAddress(metadata.getPublicAddresses().iterator().next());
+        String publicAddressName = firstAddress(metadata.getPublicAddresses());
+        if (publicAddressName != null) {
+            InetAddress publicAddress = mappedAddresses.get(publicAddressName);
+            if (publicAddress == null) {
+                LOGGER.warning("Skipping node " + metadata.getId() + ", address '" + publicAddressName + "' is unresolvable");
+                return null;
+            }
             publicAddressInstance = new Address(publicAddress, computeServiceBuilder.getServicePort());
-            if (publicAddress.getHostAddress().equals(getLocalHostAddress())) {
+            if (local.contains(publicAddress)) {
                 fetchMemberMetaData(metadata);
             }
         }
@@ -130,59 +422,23 @@ public class JCloudsDiscoveryStrategy extends AbstractDiscoveryStrategy {
         return new SimpleDiscoveryNode(privateAddressInstance, publicAddressInstance);
     }
 
-    private InetAddress mapAddress(String address) {
-        if (address == null) {
-            return null;
-        }
-        try {
-            return InetAddress.getByName(address);
-        } catch (UnknownHostException e) {
-            throw new InvalidConfigurationException("Address '" + address + "' could not be resolved");
-        }
+    private static String firstAddress(Set<String> addresses) {
+        return addresses.isEmpty() ? null : addresses.iterator().next();
     }
 
     private void fetchMemberMetaData(NodeMetadata metadata) {
-        Location location = metadata.getLocation();
-        while (location != null) {
-            String id = location.getId();
-            if (location.getScope().equals(LocationScope.ZONE)) {
-                if (id != null) {
-                    memberMetaData.put(PARTITION_GROUP_ZONE, id);
-                }
-            }
-            location = location.getParent();
+        String zone = locationResolver.getZone(metadata.getLocation());
+        if (zone != null) {
+            memberMetaData.put(PARTITION_GROUP_ZONE, zone);
+        }
+        // instances without DNS host names have none, the concurrent map does not take null values
+        String hostname = metadata.getHostname();
+        if (hostname != null) {
+            memberMetaData.put(PARTITION_GROUP_HOST, hostname);
         }
-        memberMetaData.put(PARTITION_GROUP_HOST, metadata.getHostname());
     }
 
     public String getLocalHostAddress() {
-        try {
-            InetAddress candidateAddress = null;
-            // Iterate all NICs (network interface cards)...
-            for (Enumeration ifaces = NetworkInterface.getNetworkInterfaces(); ifaces.hasMoreElements(); ) {
-                NetworkInterface iface = (NetworkInterface) ifaces.nextElement();
-                for (Enumeration inetAddrs = iface.getInetAddresses(); inetAddrs.hasMoreElements(); ) {
-                    InetAddress inetAddr = (InetAddress) inetAddrs.nextElement();
-                    if (!inetAddr.isLoopbackAddress()) {
-                        if (inetAddr.isSiteLocalAddress()) {
-                            return inetAddr.getHostAddress();
-                        } else if (candidateAddress == null) {
-                            candidateAddress = inetAddr;
-                        }
-                    }
-                }
-            }
-            if (candidateAddress != null) {
-                return candidateAddress.getHostAddress();
-            }
-            InetAddress jdkSuppliedAddress = InetAddress.getLocalHost();
-            if (jdkSuppliedAddress == null) {
-                throw new UnknownHostException("The JDK InetAddress.getLocalHost() method unexpectedly returned null.");
-            }
-            return jdkSuppliedAddress.getHostAddress();
-        } catch (Exception e) {
-            LOGGER.warning("Failed to determine Host address: " + e);
-            return null;
-        }
+        return localAddresses.getPreferredHostAddress();
     }
 }
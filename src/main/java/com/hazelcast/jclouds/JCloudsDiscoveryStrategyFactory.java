@@ -21,10 +21,9 @@ import com.hazelcast.spi.discovery.DiscoveryNode;
 import com.hazelcast.spi.discovery.DiscoveryStrategy;
 import com.hazelcast.spi.discovery.DiscoveryStrategyFactory;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -32,24 +31,42 @@ import java.util.Map;
  */
 public class JCloudsDiscoveryStrategyFactory implements DiscoveryStrategyFactory {
 
-    private static final Collection<PropertyDefinition> PROPERTY_DEFINITIONS;
-
-    static {
-        List<PropertyDefinition> propertyDefinitions = new ArrayList<PropertyDefinition>();
-        propertyDefinitions.add(JCloudsProperties.ENDPOINT);
-        propertyDefinitions.add(JCloudsProperties.CREDENTIAL);
-        propertyDefinitions.add(JCloudsProperties.CREDENTIAL_PATH);
-        propertyDefinitions.add(JCloudsProperties.GROUP);
-        propertyDefinitions.add(JCloudsProperties.IDENTITY);
-        propertyDefinitions.add(JCloudsProperties.TAG_KEYS);
-        propertyDefinitions.add(JCloudsProperties.TAG_VALUES);
-        propertyDefinitions.add(JCloudsProperties.PROVIDER);
-        propertyDefinitions.add(JCloudsProperties.REGIONS);
-        propertyDefinitions.add(JCloudsProperties.ROLE_NAME);
-        propertyDefinitions.add(JCloudsProperties.ZONES);
-        propertyDefinitions.add(JCloudsProperties.HZ_PORT);
-        PROPERTY_DEFINITIONS = Collections.unmodifiableCollection(propertyDefinitions);
-    }
+    private static final Collection<PropertyDefinition> PROPERTY_DEFINITIONS = Collections.unmodifiableCollection(
+            Arrays.<PropertyDefinition>asList(
+                    JCloudsProperties.ENDPOINT,
+                    JCloudsProperties.CREDENTIAL,
+                    JCloudsProperties.CREDENTIAL_PATH,
+                    JCloudsProperties.GROUP,
+                    JCloudsProperties.IDENTITY,
+                    JCloudsProperties.TAG_KEYS,
+                    JCloudsProperties.TAG_VALUES,
+                    JCloudsProperties.PROVIDER,
+                    JCloudsProperties.REGIONS,
+                    JCloudsProperties.ROLE_NAME,
+                    JCloudsProperties.ZONES,
+                    JCloudsProperties.HZ_PORT,
+                    JCloudsProperties.CACHE_TTL_SECONDS,
+                    JCloudsProperties.REFRESH_INTERVAL_SECONDS,
+                    JCloudsProperties.FAN_OUT_THREADS,
+                    JCloudsProperties.FAN_OUT_TIMEOUT_SECONDS,
+                    JCloudsProperties.FILTER_PUSH_DOWN,
+                    JCloudsProperties.USE_INSTANCE_METADATA,
+                    JCloudsProperties.ASYNC_LOGGING,
+                    JCloudsProperties.METRICS_JMX_ENABLED,
+                    JCloudsProperties.SNAPSHOT_FILE,
+                    JCloudsProperties.HTTP_CONNECT_TIMEOUT_MILLIS,
+                    JCloudsProperties.HTTP_READ_TIMEOUT_MILLIS,
+                    JCloudsProperties.HTTP_MAX_CONNECTIONS_PER_HOST,
+                    JCloudsProperties.HTTP_KEEP_ALIVE_SECONDS,
+                    JCloudsProperties.HTTP_GZIP,
+                    JCloudsProperties.HTTP_DRIVER,
+                    JCloudsProperties.START_TIMEOUT_SECONDS,
+                    JCloudsProperties.ENGINE,
+                    JCloudsProperties.SOURCE_1,
+                    JCloudsProperties.SOURCE_2,
+                    JCloudsProperties.SOURCE_3,
+                    JCloudsProperties.SOURCE_4,
+                    JCloudsProperties.SOURCE_TIMEOUT_SECONDS));
 
     @Override
     public Class<? extends DiscoveryStrategy> getDiscoveryStrategyType() {
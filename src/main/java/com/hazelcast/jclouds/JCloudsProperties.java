@@ -22,6 +22,7 @@ import com.hazelcast.config.properties.SimplePropertyDefinition;
 import com.hazelcast.config.properties.ValidationException;
 import com.hazelcast.config.properties.ValueValidator;
 
+import static com.hazelcast.config.properties.PropertyTypeConverter.BOOLEAN;
 import static com.hazelcast.config.properties.PropertyTypeConverter.INTEGER;
 import static com.hazelcast.config.properties.PropertyTypeConverter.STRING;
 
@@ -81,6 +82,133 @@ public final class JCloudsProperties {
      * Property used to define IAM roles specific to AWS-EC2
      */
     public static final PropertyDefinition ROLE_NAME = property("role-name", STRING);
+    /**
+     * Property used to define how many seconds a discovered node snapshot is served before it is
+     * considered stale and refreshed in the background. Default value is 0, which disables the cache.
+     */
+    public static final PropertyDefinition CACHE_TTL_SECONDS = property("cache-ttl-seconds", INTEGER,
+            new NonNegativeValueValidator("cache-ttl-seconds"));
+    /**
+     * Property used to define the interval in seconds of the background refresh of the discovered node snapshot.
+     * Only used when the cache is enabled. Default value is 0, which disables the periodic refresh.
+     */
+    public static final PropertyDefinition REFRESH_INTERVAL_SECONDS = property("refresh-interval-seconds", INTEGER,
+            new NonNegativeValueValidator("refresh-interval-seconds"));
+    /**
+     * Property used to define the number of threads querying the configured regions at the same time. With aws-ec2
+     * and no region configured, the regions of the configured zones are queried. Zones are not queried separately,
+     * as the providers list a whole region at once. Default value is 0, which queries all regions through a single
+     * request.
+     */
+    public static final PropertyDefinition FAN_OUT_THREADS = property("fan-out-threads", INTEGER,
+            new NonNegativeValueValidator("fan-out-threads"));
+    /**
+     * Property used to define the number of seconds to wait for a region when they are queried at the
+     * same time. Regions not answering in time are skipped. Must be at least 1, default value is 30.
+     */
+    public static final PropertyDefinition FAN_OUT_TIMEOUT_SECONDS = property("fan-out-timeout-seconds", INTEGER,
+            new PositiveValueValidator("fan-out-timeout-seconds"));
+    /**
+     * Property used to define whether the tag, zone and region filters are sent to the cloud provider with
+     * the node listing request, where the provider supports it (currently aws-ec2). Otherwise all nodes are
+     * listed and filtered on the client. Default value is true.
+     */
+    public static final PropertyDefinition FILTER_PUSH_DOWN = property("filter-push-down", BOOLEAN);
+    /**
+     * Property used to define whether the zone and host name of the local member are read from the instance
+     * metadata service of the cloud provider (supported for aws-ec2, openstack-nova and google-compute-engine)
+     * instead of being looked up in the list of discovered nodes. Default value is true.
+     */
+    public static final PropertyDefinition USE_INSTANCE_METADATA = property("use-instance-metadata", BOOLEAN);
+    /**
+     * Property used to define whether the log messages of jclouds are handed off to a background thread instead of
+     * being logged by the thread doing the cloud request. Default value is false.
+     */
+    public static final PropertyDefinition ASYNC_LOGGING = property("async-logging", BOOLEAN);
+    /**
+     * Property used to define whether the discovery metrics are registered as an MBean
+     * (com.hazelcast.jclouds:type=DiscoveryMetrics). Default value is false.
+     */
+    public static final PropertyDefinition METRICS_JMX_ENABLED = property("metrics-jmx-enabled", BOOLEAN);
+    /**
+     * Property used to define the file the last discovered nodes are persisted to. On start the persisted nodes
+     * are returned while the cloud is queried in the background, they are also returned if the cloud query fails,
+     * unless it fails on a configuration error.
+     * Not persisted by default.
+     */
+    public static final PropertyDefinition SNAPSHOT_FILE = property("snapshot-file", STRING);
+    /**
+     * Property used to define the number of milliseconds to wait for a connection to the cloud API.
+     * Default value is 10000.
+     */
+    public static final PropertyDefinition HTTP_CONNECT_TIMEOUT_MILLIS = property("http-connect-timeout-millis", INTEGER,
+            new NonNegativeValueValidator("http-connect-timeout-millis"));
+    /**
+     * Property used to define the number of milliseconds to wait for data from the cloud API.
+     * Default value is 10000.
+     */
+    public static final PropertyDefinition HTTP_READ_TIMEOUT_MILLIS = property("http-read-timeout-millis", INTEGER,
+            new NonNegativeValueValidator("http-read-timeout-millis"));
+    /**
+     * Property used to define the maximum number of connections to a cloud API host. The OkHttp driver also keeps
+     * up to this many idle connections alive. Default value is the jclouds default.
+     */
+    public static final PropertyDefinition HTTP_MAX_CONNECTIONS_PER_HOST = property("http-max-connections-per-host", INTEGER,
+            new NonNegativeValueValidator("http-max-connections-per-host"));
+    /**
+     * Property used to define the number of seconds idle connections are kept alive for reuse.
+     * Only used by the OkHttp driver. Default value is 300.
+     */
+    public static final PropertyDefinition HTTP_KEEP_ALIVE_SECONDS = property("http-keep-alive-seconds", INTEGER,
+            new NonNegativeValueValidator("http-keep-alive-seconds"));
+    /**
+     * Property used to define whether gzip compressed responses are requested. Only used by the OkHttp driver.
+     * Default value is true.
+     */
+    public static final PropertyDefinition HTTP_GZIP = property("http-gzip", BOOLEAN);
+    /**
+     * Property used to define the HTTP driver: {@code okhttp} for pooled keep-alive connections, or the class name
+     * of a Guice module annotated with jclouds {@code @ConfiguresHttpCommandExecutorService}. Default is the JDK driver.
+     */
+    public static final PropertyDefinition HTTP_DRIVER = property("http-driver", STRING);
+    /**
+     * Property used to define the number of seconds the first discovery waits for the jclouds context, which is
+     * built in the background on start. 0 builds the context on start, before the member start continues.
+     * Default value is 60.
+     */
+    public static final PropertyDefinition START_TIMEOUT_SECONDS = property("start-timeout-seconds", INTEGER,
+            new NonNegativeValueValidator("start-timeout-seconds"));
+    /**
+     * Property used to define how the nodes are listed: {@code jclouds} through the jclouds compute service or
+     * {@code direct} through a single EC2 {@code DescribeInstances} or GCE {@code instances.aggregatedList} request,
+     * supported with aws-ec2 and google-compute-engine. Default value is jclouds.
+     */
+    public static final PropertyDefinition ENGINE = property("engine", STRING);
+    /**
+     * Property used to define the first source of the federated mode, as {@code key=value} pairs separated by
+     * {@code ;}, e.g. {@code provider=aws-ec2;identity=...;credential=...;regions=us-east-1}. The keys are the
+     * provider, credential, filter, HTTP and listing properties, the values not given are taken from the top level
+     * properties. When a source is configured, the nodes of all sources are listed concurrently and merged.
+     */
+    public static final PropertyDefinition SOURCE_1 = property("source-1", STRING);
+    /**
+     * Property used to define the second source of the federated mode, see {@link #SOURCE_1}.
+     */
+    public static final PropertyDefinition SOURCE_2 = property("source-2", STRING);
+    /**
+     * Property used to define the third source of the federated mode, see {@link #SOURCE_1}.
+     */
+    public static final PropertyDefinition SOURCE_3 = property("source-3", STRING);
+    /**
+     * Property used to define the fourth source of the federated mode, see {@link #SOURCE_1}.
+     */
+    public static final PropertyDefinition SOURCE_4 = property("source-4", STRING);
+    /**
+     * Property used to define the number of seconds to wait for each source of the federated mode. A source not
+     * answering in time contributes the nodes it listed last. 0 waits without a deadline. Default value is 10.
+     */
+    public static final PropertyDefinition SOURCE_TIMEOUT_SECONDS = property("source-timeout-seconds", INTEGER,
+            new NonNegativeValueValidator("source-timeout-seconds"));
 
     private static final int MIN_PORT = 0;
     private static final int MAX_PORT = 65535;
@@ -111,4 +239,40 @@ public final class JCloudsProperties {
             }
         }
     }
+
+    /**
+     * Validator for values which must not be negative, such as durations
+     */
+    protected static class NonNegativeValueValidator implements ValueValidator<Integer> {
+
+        private final String key;
+
+        public NonNegativeValueValidator(String key) {
+            this.key = key;
+        }
+
+        public void validate(Integer value) throws ValidationException {
+            if (value < 0) {
+                throw new ValidationException(key + " must be greater or equal to 0");
+            }
+        }
+    }
+
+    /**
+     * Validator for values which must be at least 1, such as timeouts which cannot be disabled
+     */
+    protected static class PositiveValueValidator implements ValueValidator<Integer> {
+
+        private final String key;
+
+        public PositiveValueValidator(String key) {
+            this.key = key;
+        }
+
+        public void validate(Integer value) throws ValidationException {
+            if (value < 1) {
+                throw new ValidationException(key + " must be greater or equal to 1");
+            }
+        }
+    }
 }
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.jclouds;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Pull reader for the string fields of a flat JSON object, e.g. the IAM role credentials document or a
+ * GCE service account key file. The input is read in a single pass through a small buffer, values of
+ * other types and of nested objects or arrays are skipped without being materialized, and so are the
+ * string values of fields which are not requested. The layout of the document does not matter.
+ */
+final class JsonFieldReader {
+
+    private static final int BUFFER_SIZE = 1024;
+    private static final int UNICODE_ESCAPE_LENGTH = 4;
+    private static final int HEX_RADIX = 16;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder value = new StringBuilder();
+    private int position;
+    private int limit;
+
+    private JsonFieldReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Reads the top level string fields of a JSON object.
+     *
+     * @param reader the JSON input
+     * @param names  the names of the fields to read or {@code null} to read all string fields
+     * @return the field values keyed by field name
+     * @throws IOException if the input could not be read or is not a JSON object
+     */
+    static Map<String, String> readStringFields(Reader reader, Set<String> names) throws IOException {
+        return new JsonFieldReader(reader).readObject(names);
+    }
+
+    private Map<String, String> readObject(Set<String> names) throws IOException {
+        Map<String, String> fields = new HashMap<String, String>();
+        if (nextNonWhitespace() != '{') {
+            throw syntaxError("Expected '{'");
+        }
+        int c = nextNonWhitespace();
+        while (c != '}') {
+            readField(c, names, fields);
+            c = nextNonWhitespace();
+            if (c == ',') {
+                c = nextNonWhitespace();
+            } else if (c != '}') {
+                throw syntaxError("Expected ',' or '}'");
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Reads a field whose first character was already consumed, keeps its value if it is a requested string.
+     */
+    private void readField(int first, Set<String> names, Map<String, String> fields) throws IOException {
+        if (first != '"') {
+            throw syntaxError("Expected a field name");
+        }
+        String name = readString(true);
+        if (nextNonWhitespace() != ':') {
+            throw syntaxError("Expected ':'");
+        }
+        int c = nextNonWhitespace();
+        if (c != '"') {
+            skipValue(c);
+            return;
+        }
+        boolean requested = names == null || names.contains(name);
+        String fieldValue = readString(requested);
+        if (requested) {
+            fields.put(name, fieldValue);
+        }
+    }
+
+    /**
+     * Reads a string whose opening quote was already consumed.
+     */
+    private String readString(boolean keep) throws IOException {
+        value.setLength(0);
+        for (int c = read(); c != '"'; c = read()) {
+            if (c == -1) {
+                throw syntaxError("Unterminated string");
+            }
+            if (c == '\\') {
+                c = readEscaped();
+            }
+            if (keep) {
+                value.append((char) c);
+            }
+        }
+        return keep ? value.toString() : null;
+    }
+
+    private int readEscaped() throws IOException {
+        int c = read();
+        switch (c) {
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'u':
+                return readUnicodeEscape();
+            case '"':
+            case '\\':
+            case '/':
+                return c;
+            default:
+                throw syntaxError("Invalid escape sequence");
+        }
+    }
+
+    private int readUnicodeEscape() throws IOException {
+        int result = 0;
+        for (int i = 0; i < UNICODE_ESCAPE_LENGTH; i++) {
+            int digit = Character.digit(read(), HEX_RADIX);
+            if (digit < 0) {
+                throw syntaxError("Invalid unicode escape");
+            }
+            result = result * HEX_RADIX + digit;
+        }
+        return result;
+    }
+
+    /**
+     * Skips a non-string value whose first character was already consumed.
+     */
+    private void skipValue(int first) throws IOException {
+        if (first == '{' || first == '[') {
+            skipNested();
+            return;
+        }
+        // number, true, false or null
+        int c = read();
+        while (c != -1 && c != ',' && c != '}' && c != ']' && !Character.isWhitespace(c)) {
+            c = read();
+        }
+        unread(c);
+    }
+
+    /**
+     * Skips an object or array whose opening bracket was already consumed.
+     */
+    private void skipNested() throws IOException {
+        int depth = 1;
+        while (depth > 0) {
+            int c = read();
+            if (c == -1) {
+                throw syntaxError("Unterminated value");
+            } else if (c == '"') {
+                readString(false);
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                depth--;
+            }
+        }
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        int c = read();
+        while (c != -1 && Character.isWhitespace(c)) {
+            c = read();
+        }
+        return c;
+    }
+
+    private int read() throws IOException {
+        if (position == limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position++];
+    }
+
+    private void unread(int c) {
+        if (c != -1) {
+            position--;
+        }
+    }
+
+    private static IOException syntaxError(String message) {
+        return new IOException("Malformed JSON: " + message);
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.jclouds;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with power-of-two microsecond buckets. Recording is a few atomic
+ * increments; percentiles are estimated by the upper bound of the bucket they fall in.
+ */
+final class LatencyHistogram {
+
+    private static final int BUCKET_COUNT = 40;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    void record(long nanos) {
+        long value = Math.max(0, nanos);
+        long micros = TimeUnit.NANOSECONDS.toMicros(value);
+        buckets.incrementAndGet(Math.min(BUCKET_COUNT - 1, Long.SIZE - Long.numberOfLeadingZeros(micros)));
+        count.incrementAndGet();
+        totalNanos.addAndGet(value);
+        long max = maxNanos.get();
+        while (value > max && !maxNanos.compareAndSet(max, value)) {
+            max = maxNanos.get();
+        }
+    }
+
+    DiscoveryMetricsSnapshot.Latency snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        long maxMicros = TimeUnit.NANOSECONDS.toMicros(maxNanos.get());
+        long meanMicros = total == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalNanos.get()) / Math.max(1, count.get());
+        return new DiscoveryMetricsSnapshot.Latency(total, meanMicros,
+                percentile(counts, total, DiscoveryMetricsSnapshot.Latency.MEDIAN, maxMicros),
+                percentile(counts, total, DiscoveryMetricsSnapshot.Latency.P99, maxMicros), maxMicros);
+    }
+
+    private static long percentile(long[] counts, long total, double percentile, long maxMicros) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile * total);
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            if (cumulative >= rank) {
+                return Math.min(1L << i, maxMicros);
+            }
+        }
+        return maxMicros;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.jclouds;
+
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+import com.hazelcast.util.Clock;
+
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Addresses of the local network interfaces, scanned once and rescanned only after the rescan interval
+ * elapsed, so checking whether a discovered address belongs to this host is a hash lookup.
+ */
+final class LocalAddresses {
+
+    private static final ILogger LOGGER = Logger.getLogger(LocalAddresses.class);
+
+    private final long rescanIntervalMillis;
+
+    private volatile Snapshot snapshot;
+
+    LocalAddresses(long rescanIntervalMillis) {
+        this.rescanIntervalMillis = rescanIntervalMillis;
+    }
+
+    /**
+     * Returns all non-loopback addresses of this host, rescanning the interfaces if the last scan is too old.
+     *
+     * @return the local addresses
+     */
+    Set<InetAddress> getAddresses() {
+        return getSnapshot().addresses;
+    }
+
+    /**
+     * Returns the preferred address of this host: the first site local address, otherwise the first
+     * non-loopback address, otherwise the address of the local host name.
+     *
+     * @return the preferred host address or {@code null} if it could not be determined
+     */
+    String getPreferredHostAddress() {
+        return getSnapshot().preferredHostAddress;
+    }
+
+    private Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current == null || Clock.currentTimeMillis() - current.scannedAt >= rescanIntervalMillis) {
+            current = scan();
+            snapshot = current;
+        }
+        return current;
+    }
+
+    private static Snapshot scan() {
+        Set<InetAddress> addresses = new HashSet<InetAddress>();
+        InetAddress siteLocalAddress = null;
+        InetAddress candidateAddress = null;
+        try {
+            for (Enumeration ifaces = NetworkInterface.getNetworkInterfaces(); ifaces.hasMoreElements(); ) {
+                NetworkInterface iface = (NetworkInterface) ifaces.nextElement();
+                for (Enumeration inetAddrs = iface.getInetAddresses(); inetAddrs.hasMoreElements(); ) {
+                    InetAddress inetAddr = (InetAddress) inetAddrs.nextElement();
+                    if (inetAddr.isLoopbackAddress()) {
+                        continue;
+                    }
+                    addresses.add(inetAddr);
+                    if (siteLocalAddress == null && inetAddr.isSiteLocalAddress()) {
+                        siteLocalAddress = inetAddr;
+                    } else if (candidateAddress == null) {
+                        candidateAddress = inetAddr;
+                    }
+                }
+            }
+            InetAddress preferred = siteLocalAddress != null ? siteLocalAddress : candidateAddress;
+            if (preferred == null) {
+                preferred = getJdkSuppliedAddress();
+                addresses.add(preferred);
+            }
+            return new Snapshot(addresses, preferred.getHostAddress());
+        } catch (Exception e) {
+            LOGGER.warning("Failed to determine Host address: " + e);
+            return new Snapshot(addresses, null);
+        }
+    }
+
+    private static InetAddress getJdkSuppliedAddress() throws UnknownHostException {
+        InetAddress jdkSuppliedAddress = InetAddress.getLocalHost();
+        if (jdkSuppliedAddress == null) {
+            throw new UnknownHostException("The JDK InetAddress.getLocalHost() method unexpectedly returned null.");
+        }
+        return jdkSuppliedAddress;
+    }
+
+    /**
+     * Result of one interface scan.
+     */
+    private static final class Snapshot {
+
+        private final Set<InetAddress> addresses;
+        private final String preferredHostAddress;
+        private final long scannedAt;
+
+        Snapshot(Set<InetAddress> addresses, String preferredHostAddress) {
+            this.addresses = Collections.unmodifiableSet(addresses);
+            this.preferredHostAddress = preferredHostAddress;
+            this.scannedAt = Clock.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.jclouds;
+
+import com.google.common.base.Predicate;
+import com.hazelcast.core.HazelcastException;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+import org.jclouds.compute.ComputeService;
+import org.jclouds.compute.domain.ComputeMetadata;
+import org.jclouds.compute.domain.NodeMetadata;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Queries one {@link ComputeService} per configured region at the same time on a bounded
+ * executor and merges their nodes. A location which fails or does not answer within the timeout
+ * is skipped, so the discovery time is bound by the slowest answering location.
+ */
+final class LocationFanOut {
+
+    private static final ILogger LOGGER = Logger.getLogger(LocationFanOut.class);
+
+    private final Map<String, ComputeService> computeServices;
+    private final NodeLister nodeLister;
+    private final long timeoutMillis;
+    private final ExecutorService executor;
+
+    LocationFanOut(Map<String, ComputeService> computeServices, NodeLister nodeLister, int threads, long timeoutMillis) {
+        this.computeServices = new LinkedHashMap<String, ComputeService>(computeServices);
+        this.nodeLister = nodeLister;
+        this.timeoutMillis = timeoutMillis;
+        int poolSize = Math.max(1, Math.min(threads, computeServices.size()));
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory("hz.jclouds.fan-out"));
+    }
+
+    /**
+     * Lists the nodes matching the filter in all locations concurrently.
+     *
+     * @param filter the node filter passed to each location
+     * @param calls  incremented by the number of listing requests of all locations
+     * @return the merged nodes of all answering locations
+     * @throws HazelcastException if none of the locations answered
+     */
+    Set<NodeMetadata> listNodesDetailsMatching(final Predicate<ComputeMetadata> filter, final AtomicInteger calls) {
+        List<String> locations = new ArrayList<String>(computeServices.keySet());
+        List<Callable<Set<? extends NodeMetadata>>> tasks = new ArrayList<Callable<Set<? extends NodeMetadata>>>();
+        for (final String location : locations) {
+            tasks.add(new Callable<Set<? extends NodeMetadata>>() {
+                @Override
+                public Set<? extends NodeMetadata> call() {
+                    return nodeLister.listNodes(computeServices.get(location), filter, calls);
+                }
+            });
+        }
+
+        List<Future<Set<? extends NodeMetadata>>> futures;
+        try {
+            futures = executor.invokeAll(tasks, timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HazelcastException("Interrupted while listing nodes", e);
+        }
+
+        Set<NodeMetadata> result = new HashSet<NodeMetadata>();
+        int answered = 0;
+        for (int i = 0; i < futures.size(); i++) {
+            Set<? extends NodeMetadata> nodes = getOrNull(locations.get(i), futures.get(i));
+            if (nodes != null) {
+                result.addAll(nodes);
+                answered++;
+            }
+        }
+        if (answered == 0) {
+            throw new HazelcastException("None of the locations " + locations + " could be queried for nodes");
+        }
+        return result;
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Closes the contexts of the compute services, for compute services which are not pooled.
+     */
+    void closeContexts() {
+        for (ComputeService computeService : computeServices.values()) {
+            computeService.getContext().close();
+        }
+    }
+
+    private Set<? extends NodeMetadata> getOrNull(String location, Future<Set<? extends NodeMetadata>> future) {
+        try {
+            return future.get();
+        } catch (CancellationException e) {
+            LOGGER.warning("Listing nodes in location " + location + " timed out after " + timeoutMillis + " ms, skipping it");
+        } catch (ExecutionException e) {
+            LOGGER.warning("Listing nodes in location " + location + " failed, skipping it. Cause: " + e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HazelcastException("Interrupted while listing nodes", e);
+        }
+        return null;
+    }
+}
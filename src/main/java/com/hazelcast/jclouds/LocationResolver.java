@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.jclouds;
+
+import org.jclouds.domain.Location;
+import org.jclouds.domain.LocationScope;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Resolves the zone and region of a {@link Location} by walking its parent chain once per location and
+ * remembering the result, since the nodes of a cluster share a handful of locations.
+ */
+final class LocationResolver {
+
+    private static final int MAX_CACHED_LOCATIONS = 4096;
+
+    private final ConcurrentMap<Location, ResolvedLocation> resolved = new ConcurrentHashMap<Location, ResolvedLocation>();
+
+    /**
+     * @param location the location, may be {@code null}
+     * @return the id of the nearest zone in the location hierarchy or {@code null} if there is none
+     */
+    String getZone(Location location) {
+        return resolve(location).zone;
+    }
+
+    /**
+     * @param location the location, may be {@code null}
+     * @return the id of the nearest region in the location hierarchy or {@code null} if there is none
+     */
+    String getRegion(Location location) {
+        return resolve(location).region;
+    }
+
+    private ResolvedLocation resolve(Location location) {
+        if (location == null) {
+            return ResolvedLocation.NONE;
+        }
+        ResolvedLocation result = resolved.get(location);
+        if (result == null) {
+            result = walk(location);
+            if (resolved.size() < MAX_CACHED_LOCATIONS) {
+                resolved.putIfAbsent(location, result);
+            }
+        }
+        return result;
+    }
+
+    private static ResolvedLocation walk(Location location) {
+        String zone = null;
+        String region = null;
+        while (location != null) {
+            String id = location.getId();
+            if (id != null) {
+                if (zone == null && LocationScope.ZONE.equals(location.getScope())) {
+                    zone = id;
+                } else if (region == null && LocationScope.REGION.equals(location.getScope())) {
+                    region = id;
+                }
+            }
+            location = location.getParent();
+        }
+        return new ResolvedLocation(zone, region);
+    }
+
+    /**
+     * Zone and region ids of a location.
+     */
+    private static final class ResolvedLocation {
+
+        static final ResolvedLocation NONE = new ResolvedLocation(null, null);
+
+        private final String zone;
+        private final String region;
+
+        ResolvedLocation(String zone, String region) {
+            this.zone = zone;
+            this.region = region;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.jclouds;
+
+import com.hazelcast.util.Clock;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Minimal client for instance metadata services. Every request has strict connect and read timeouts and
+ * failed requests are retried a bounded number of times. Responses are read fully and closed so the
+ * underlying connection is kept alive and reused by {@link HttpURLConnection}.
+ * <p>
+ * For EC2 the client uses IMDSv2: a session token is requested with {@code PUT /latest/api/token},
+ * cached until shortly before it expires and sent with every request. If the metadata service does not
+ * support tokens, or the token request fails or times out, the client falls back to IMDSv1.
+ */
+class MetadataClient {
+
+    static final String EC2_ENDPOINT = "http://169.254.169.254";
+    static final String GCE_ENDPOINT = "http://metadata.google.internal";
+    static final String TOKEN_PATH = "/latest/api/token";
+    static final String TOKEN_HEADER = "X-aws-ec2-metadata-token";
+    static final String TOKEN_TTL_HEADER = "X-aws-ec2-metadata-token-ttl-seconds";
+
+    private static final int DEFAULT_TIMEOUT_MILLIS = 1000;
+    private static final int DEFAULT_MAX_ATTEMPTS = 3;
+    private static final long RETRY_PAUSE_MILLIS = 100;
+    private static final int TOKEN_TTL_SECONDS = 21600;
+    private static final long TOKEN_EXPIRY_MARGIN_MILLIS = 60000;
+    private static final int MILLIS_PER_SECOND = 1000;
+    private static final int BUFFER_SIZE = 1024;
+
+    private final String endpoint;
+    private final Map<String, String> headers;
+    private final boolean sessionTokens;
+    private final int timeoutMillis;
+    private final int maxAttempts;
+
+    private volatile String token;
+    private volatile long tokenExpiresAt;
+    private volatile boolean tokensUnsupported;
+
+    MetadataClient(String endpoint, Map<String, String> headers, boolean sessionTokens, int timeoutMillis,
+                   int maxAttempts) {
+        this.endpoint = endpoint;
+        this.headers = headers;
+        this.sessionTokens = sessionTokens;
+        this.timeoutMillis = timeoutMillis;
+        this.maxAttempts = maxAttempts;
+    }
+
+    static MetadataClient forEc2(String endpoint) {
+        return new MetadataClient(endpoint, Collections.<String, String>emptyMap(), true, DEFAULT_TIMEOUT_MILLIS,
+                DEFAULT_MAX_ATTEMPTS);
+    }
+
+    static MetadataClient forGce(String endpoint) {
+        return new MetadataClient(endpoint, Collections.singletonMap("Metadata-Flavor", "Google"), false,
+                DEFAULT_TIMEOUT_MILLIS, DEFAULT_MAX_ATTEMPTS);
+    }
+
+    /**
+     * Reads the given metadata path.
+     *
+     * @param path the path, starting with a slash
+     * @return the response body
+     * @throws IOException if the metadata could not be read within the configured attempts
+     */
+    String get(String path) throws IOException {
+        IOException failure = null;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                return tryGet(path);
+            } catch (HttpStatusException e) {
+                if (e.status == HttpURLConnection.HTTP_UNAUTHORIZED) {
+                    // the session token expired or was revoked, or tokens are required after all
+                    token = null;
+                    tokensUnsupported = false;
+                } else if (e.status < HttpURLConnection.HTTP_INTERNAL_ERROR) {
+                    throw e;
+                }
+                failure = e;
+            } catch (IOException e) {
+                failure = e;
+            }
+            if (attempt < maxAttempts) {
+                pause(attempt);
+            }
+        }
+        throw failure;
+    }
+
+    private String tryGet(String path) throws IOException {
+        HttpURLConnection connection = open(path, "GET");
+        if (sessionTokens) {
+            String sessionToken = getToken();
+            if (sessionToken != null) {
+                connection.setRequestProperty(TOKEN_HEADER, sessionToken);
+            }
+        }
+        return readResponse(connection);
+    }
+
+    private String getToken() throws IOException {
+        if (tokensUnsupported) {
+            return null;
+        }
+        String current = token;
+        if (current != null && Clock.currentTimeMillis() < tokenExpiresAt) {
+            return current;
+        }
+        synchronized (this) {
+            if (token == null || Clock.currentTimeMillis() >= tokenExpiresAt) {
+                HttpURLConnection connection = open(TOKEN_PATH, "PUT");
+                connection.setRequestProperty(TOKEN_TTL_HEADER, String.valueOf(TOKEN_TTL_SECONDS));
+                try {
+                    String newToken = readResponse(connection);
+                    tokenExpiresAt = Clock.currentTimeMillis() + (long) TOKEN_TTL_SECONDS * MILLIS_PER_SECOND
+                            - TOKEN_EXPIRY_MARGIN_MILLIS;
+                    token = newToken;
+                } catch (HttpStatusException e) {
+                    if (e.status >= HttpURLConnection.HTTP_INTERNAL_ERROR) {
+                        throw e;
+                    }
+                    // IMDSv1 only
+                    tokensUnsupported = true;
+                    return null;
+                } catch (IOException e) {
+                    // the PUT response does not reach containers behind a hop limit of 1, IMDSv1 may still answer
+                    tokensUnsupported = true;
+                    return null;
+                }
+            }
+            return token;
+        }
+    }
+
+    private HttpURLConnection open(String path, String method) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(endpoint + path).openConnection();
+        connection.setRequestMethod(method);
+        connection.setConnectTimeout(timeoutMillis);
+        connection.setReadTimeout(timeoutMillis);
+        connection.setUseCaches(false);
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            connection.setRequestProperty(header.getKey(), header.getValue());
+        }
+        return connection;
+    }
+
+    private static String readResponse(HttpURLConnection connection) throws IOException {
+        int status = connection.getResponseCode();
+        if (status != HttpURLConnection.HTTP_OK) {
+            // the error body has to be consumed as well to keep the connection reusable
+            InputStream errorStream = connection.getErrorStream();
+            if (errorStream != null) {
+                readFully(errorStream);
+            }
+            throw new HttpStatusException(status, connection.getURL().getPath());
+        }
+        return readFully(connection.getInputStream()).trim();
+    }
+
+    private static String readFully(InputStream stream) throws IOException {
+        Reader reader = new InputStreamReader(stream, "UTF-8");
+        try {
+            StringBuilder sb = new StringBuilder();
+            char[] buffer = new char[BUFFER_SIZE];
+            for (int read = reader.read(buffer); read != -1; read = reader.read(buffer)) {
+                sb.append(buffer, 0, read);
+            }
+            return sb.toString();
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static void pause(int attempt) throws InterruptedIOException {
+        try {
+            Thread.sleep(RETRY_PAUSE_MILLIS * attempt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while retrying the metadata request");
+        }
+    }
+
+    /**
+     * Signals a response with an unexpected HTTP status.
+     */
+    static final class HttpStatusException extends IOException {
+
+        private final int status;
+
+        HttpStatusException(int status, String path) {
+            super("Metadata request for " + path + " failed with HTTP status " + status);
+            this.status = status;
+        }
+
+        int getStatus() {
+            return status;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.jclouds;
+
+import com.google.common.base.Predicate;
+import org.jclouds.compute.domain.ComputeMetadata;
+import org.jclouds.compute.domain.NodeMetadata;
+
+import java.util.AbstractMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The group, tag, zone and region checks compiled into a single predicate. The configuration is copied
+ * into arrays and hash sets once, locations are resolved through a shared {@link LocationResolver}.
+ * The group is only checked for metadata carrying it, i.e. {@link NodeMetadata}.
+ */
+final class NodeFilter implements Predicate<ComputeMetadata> {
+
+    private final String group;
+    private final String[] tagKeys;
+    private final String[] tagValues;
+    private final Set<String> zones;
+    private final Set<String> regions;
+    private final LocationResolver locationResolver;
+
+    NodeFilter(String group, List<AbstractMap.SimpleImmutableEntry> tagPairs, Set<String> zones, Set<String> regions,
+               LocationResolver locationResolver) {
+        this.group = group;
+        this.tagKeys = new String[tagPairs.size()];
+        this.tagValues = new String[tagPairs.size()];
+        for (int i = 0; i < tagKeys.length; i++) {
+            tagKeys[i] = (String) tagPairs.get(i).getKey();
+            tagValues[i] = (String) tagPairs.get(i).getValue();
+        }
+        this.zones = zones.isEmpty() ? null : new HashSet<String>(zones);
+        this.regions = regions.isEmpty() ? null : new HashSet<String>(regions);
+        this.locationResolver = locationResolver;
+    }
+
+    @Override
+    public boolean apply(ComputeMetadata metadata) {
+        if (metadata == null) {
+            return false;
+        }
+        if (group != null && metadata instanceof NodeMetadata && !group.equals(((NodeMetadata) metadata).getGroup())) {
+            return false;
+        }
+        return hasTags(metadata.getUserMetadata()) && isInsideLocations(metadata);
+    }
+
+    private boolean hasTags(Map<String, String> userMetadata) {
+        if (tagKeys.length > userMetadata.size()) {
+            return false;
+        }
+        for (int i = 0; i < tagKeys.length; i++) {
+            if (!tagValues[i].equals(userMetadata.get(tagKeys[i]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isInsideLocations(ComputeMetadata metadata) {
+        if (zones != null) {
+            String zone = locationResolver.getZone(metadata.getLocation());
+            if (zone != null && !zones.contains(zone)) {
+                return false;
+            }
+        }
+        if (regions != null) {
+            String region = locationResolver.getRegion(metadata.getLocation());
+            if (region != null && !regions.contains(region)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
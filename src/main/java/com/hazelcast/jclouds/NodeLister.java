@@ -0,0 +1,55 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.jclouds;
+
+import com.google.common.base.Predicate;
+import org.jclouds.compute.ComputeService;
+import org.jclouds.compute.domain.ComputeMetadata;
+import org.jclouds.compute.domain.NodeMetadata;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lists the nodes of a {@link ComputeService}, optionally pushing the node filter down to the
+ * cloud provider so only the matching nodes are transferred.
+ */
+interface NodeLister {
+
+    /**
+     * Lists the nodes with the provider agnostic jclouds API and applies the filter on the client.
+     */
+    NodeLister CLIENT_SIDE = new NodeLister() {
+        @Override
+        public Set<? extends NodeMetadata> listNodes(ComputeService computeService, Predicate<ComputeMetadata> nodeFilter,
+                                                     AtomicInteger calls) {
+            // the requests jclouds sends for it are not visible here, counted as one
+            calls.incrementAndGet();
+            return computeService.listNodesDetailsMatching(nodeFilter);
+        }
+    };
+
+    /**
+     * Lists the nodes matching the filter.
+     *
+     * @param computeService the compute service to list the nodes of
+     * @param nodeFilter     the client side node filter
+     * @param calls          incremented by the number of listing requests sent to the cloud provider
+     * @return the matching nodes
+     */
+    Set<? extends NodeMetadata> listNodes(ComputeService computeService, Predicate<ComputeMetadata> nodeFilter,
+                                          AtomicInteger calls);
+}
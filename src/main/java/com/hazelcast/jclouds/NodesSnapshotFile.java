@@ -0,0 +1,216 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.jclouds;
+
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+import com.hazelcast.nio.Address;
+import com.hazelcast.spi.discovery.DiscoveryNode;
+import com.hazelcast.spi.discovery.SimpleDiscoveryNode;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Persists the last discovered nodes to a local file, so a restarting member can join the nodes it knew
+ * before the cloud answers. The file holds the raw addresses and ports followed by a CRC32 of the content,
+ * it is written to a temporary file first and renamed over the previous snapshot.
+ */
+final class NodesSnapshotFile {
+
+    private static final ILogger LOGGER = Logger.getLogger(NodesSnapshotFile.class);
+
+    private static final int MAGIC = 0x484A4E53;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 9;
+    private static final int CHECKSUM_BYTES = 8;
+    private static final int MIN_NODE_BYTES = 2;
+    private static final int MAX_FILE_BYTES = 16 * 1024 * 1024;
+
+    private final File file;
+    private final File tmpFile;
+
+    private byte[] lastContent;
+    private List<DiscoveryNode> lastNodes;
+
+    NodesSnapshotFile(File file) {
+        this.file = file;
+        this.tmpFile = new File(file.getPath() + ".tmp");
+    }
+
+    /**
+     * @param path the path of the snapshot file or {@code null}
+     * @return the snapshot file or {@code null} if no path is given
+     */
+    static NodesSnapshotFile forPath(String path) {
+        return path == null ? null : new NodesSnapshotFile(new File(path));
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    /**
+     * Persists the nodes unless they are the same as the last persisted ones. Failures are logged only,
+     * the discovery does not depend on the snapshot being written.
+     *
+     * @param nodes the discovered nodes
+     */
+    synchronized void write(List<DiscoveryNode> nodes) {
+        try {
+            byte[] content = encode(nodes);
+            if (Arrays.equals(content, lastContent)) {
+                return;
+            }
+            writeAtomically(content);
+            lastContent = content;
+            lastNodes = nodes;
+        } catch (IOException e) {
+            LOGGER.warning("Failed to persist the discovered nodes to " + file + ". Cause: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the last persisted nodes, read from the file if nothing was persisted by this instance yet.
+     *
+     * @return the persisted nodes or {@code null} if there is no valid snapshot
+     */
+    synchronized List<DiscoveryNode> load() {
+        if (lastNodes != null || !file.isFile()) {
+            return lastNodes;
+        }
+        try {
+            byte[] content = readFully();
+            lastNodes = decode(content);
+            lastContent = content;
+        } catch (IOException e) {
+            LOGGER.warning("Ignoring the persisted nodes in " + file + ". Cause: " + e.getMessage());
+        }
+        return lastNodes;
+    }
+
+    private void writeAtomically(byte[] content) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Cannot create directory " + parent);
+        }
+        FileOutputStream out = new FileOutputStream(tmpFile);
+        try {
+            out.write(content);
+            out.getFD().sync();
+        } finally {
+            out.close();
+        }
+        // renaming over an existing file fails on some platforms, the old snapshot is removed first there
+        if (!tmpFile.renameTo(file) && !(file.delete() && tmpFile.renameTo(file))) {
+            throw new IOException("Cannot rename " + tmpFile + " to " + file);
+        }
+    }
+
+    private byte[] readFully() throws IOException {
+        long length = file.length();
+        if (length > MAX_FILE_BYTES) {
+            throw new IOException("Snapshot is too large: " + length + " bytes");
+        }
+        byte[] content = new byte[(int) length];
+        DataInputStream in = new DataInputStream(new FileInputStream(file));
+        try {
+            in.readFully(content);
+        } finally {
+            in.close();
+        }
+        return content;
+    }
+
+    static byte[] encode(List<DiscoveryNode> nodes) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(nodes.size());
+        for (DiscoveryNode node : nodes) {
+            writeAddress(out, node.getPrivateAddress());
+            writeAddress(out, node.getPublicAddress());
+        }
+        out.flush();
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        out.writeLong(crc.getValue());
+        return bytes.toByteArray();
+    }
+
+    static List<DiscoveryNode> decode(byte[] content) throws IOException {
+        if (content.length < HEADER_BYTES + CHECKSUM_BYTES) {
+            throw new IOException("Snapshot is truncated");
+        }
+        int length = content.length - CHECKSUM_BYTES;
+        CRC32 crc = new CRC32();
+        crc.update(content, 0, length);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(content));
+        in.skipBytes(length);
+        if (in.readLong() != crc.getValue()) {
+            throw new IOException("Snapshot checksum mismatch");
+        }
+        in = new DataInputStream(new ByteArrayInputStream(content, 0, length));
+        if (in.readInt() != MAGIC || in.readUnsignedByte() != VERSION) {
+            throw new IOException("Unsupported snapshot format");
+        }
+        int count = in.readInt();
+        if (count < 0 || count > (length - HEADER_BYTES) / MIN_NODE_BYTES) {
+            throw new IOException("Invalid node count " + count);
+        }
+        List<DiscoveryNode> nodes = new ArrayList<DiscoveryNode>(count);
+        for (int i = 0; i < count; i++) {
+            Address privateAddress = readAddress(in);
+            Address publicAddress = readAddress(in);
+            nodes.add(new SimpleDiscoveryNode(privateAddress, publicAddress));
+        }
+        return Collections.unmodifiableList(nodes);
+    }
+
+    private static void writeAddress(DataOutputStream out, Address address) throws IOException {
+        if (address == null) {
+            out.writeByte(0);
+            return;
+        }
+        byte[] raw = address.getInetAddress().getAddress();
+        out.writeByte(raw.length);
+        out.write(raw);
+        out.writeShort(address.getPort());
+    }
+
+    private static Address readAddress(DataInputStream in) throws IOException {
+        int length = in.readUnsignedByte();
+        if (length == 0) {
+            return null;
+        }
+        byte[] raw = new byte[length];
+        in.readFully(raw);
+        return new Address(InetAddress.getByAddress(raw), in.readUnsignedShort());
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.jclouds;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Inject;
+import com.google.inject.name.Named;
+import com.squareup.okhttp.ConnectionPool;
+import com.squareup.okhttp.Interceptor;
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.Response;
+import org.jclouds.http.config.ConfiguresHttpCommandExecutorService;
+import org.jclouds.http.okhttp.OkHttpClientSupplier;
+import org.jclouds.http.okhttp.config.OkHttpCommandExecutorServiceModule;
+
+import java.io.IOException;
+
+/**
+ * Installs the jclouds OkHttp driver with a connection pool keeping idle connections alive, so successive
+ * discoveries reuse the connections instead of repeating the TLS handshake. Only loaded by name when the
+ * {@code okhttp} driver is configured, as jclouds-okhttp is an optional dependency.
+ */
+@ConfiguresHttpCommandExecutorService
+final class OkHttpTransportModule extends AbstractModule {
+
+    @Override
+    protected void configure() {
+        install(new OkHttpCommandExecutorServiceModule());
+        bind(OkHttpClientSupplier.class).to(PooledOkHttpClientSupplier.class);
+    }
+
+    /**
+     * Creates OkHttp clients with the configured connection pool and content encoding.
+     */
+    static final class PooledOkHttpClientSupplier implements OkHttpClientSupplier {
+
+        private static final Interceptor IDENTITY_ENCODING = new Interceptor() {
+            @Override
+            public Response intercept(Chain chain) throws IOException {
+                // an explicit encoding disables the transparent gzip of OkHttp
+                return chain.proceed(chain.request().newBuilder().header("Accept-Encoding", "identity").build());
+            }
+        };
+
+        private final int maxIdleConnections;
+        private final long keepAliveMillis;
+        private final boolean gzip;
+
+        @Inject
+        PooledOkHttpClientSupplier(@Named(HttpTransport.MAX_IDLE_CONNECTIONS) int maxIdleConnections,
+                                   @Named(HttpTransport.KEEP_ALIVE_MILLIS) long keepAliveMillis,
+                                   @Named(HttpTransport.GZIP) boolean gzip) {
+            this.maxIdleConnections = maxIdleConnections;
+            this.keepAliveMillis = keepAliveMillis;
+            this.gzip = gzip;
+        }
+
+        @Override
+        public OkHttpClient get() {
+            OkHttpClient client = new OkHttpClient();
+            client.setConnectionPool(new ConnectionPool(maxIdleConnections, keepAliveMillis));
+            if (!gzip) {
+                client.interceptors().add(IDENTITY_ENCODING);
+            }
+            return client;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.jclouds;
+
+import com.hazelcast.core.HazelcastException;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.hazelcast.util.ExceptionUtil.rethrow;
+
+/**
+ * Runs a call once for all threads asking for its result at the same time: the first caller runs it,
+ * callers arriving while it runs wait for its result or failure. The running call is published with a
+ * compare-and-set, an uncontended caller takes no lock.
+ *
+ * @param <T> the result type
+ */
+final class SingleFlight<T> {
+
+    private final Callable<T> call;
+    private final AtomicReference<FutureTask<T>> inFlight = new AtomicReference<FutureTask<T>>();
+
+    SingleFlight(Callable<T> call) {
+        this.call = call;
+    }
+
+    /**
+     * Runs the call, or joins the call already running.
+     *
+     * @return the result of the call
+     */
+    T execute() {
+        while (true) {
+            FutureTask<T> running = inFlight.get();
+            if (running != null) {
+                return await(running);
+            }
+            FutureTask<T> task = new FutureTask<T>(call);
+            if (inFlight.compareAndSet(null, task)) {
+                try {
+                    task.run();
+                } finally {
+                    inFlight.compareAndSet(task, null);
+                }
+                return await(task);
+            }
+        }
+    }
+
+    private T await(FutureTask<T> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HazelcastException("Interrupted while waiting for the running call", e);
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.jclouds;
+
+import com.hazelcast.util.Clock;
+import org.jclouds.http.HttpResponseException;
+
+import java.util.Random;
+
+/**
+ * Recognizes throttled cloud requests and computes how long to back off, using decorrelated jitter: every
+ * delay is picked at random between the base delay and three times the previous delay, up to a cap. The
+ * jitter keeps members that were throttled at the same time from retrying at the same time. Successful
+ * requests end the backoff and halve the remembered delay, so a recovered API is polled at full rate again
+ * while an API that keeps throttling is backed off from quickly.
+ */
+final class ThrottlingBackoff {
+
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final int GROWTH_FACTOR = 3;
+    private static final int MAX_CAUSES = 10;
+    private static final String[] THROTTLING_CODES = {
+            // EC2 and other AWS APIs
+            "RequestLimitExceeded", "Throttling",
+            // GCE
+            "rateLimitExceeded", "userRateLimitExceeded",
+            "Too Many Requests",
+    };
+
+    private final long baseMillis;
+    private final long capMillis;
+    private final Random random;
+
+    private long delayMillis;
+    private long retryAt;
+
+    ThrottlingBackoff(long baseMillis, long capMillis) {
+        this(baseMillis, capMillis, new Random());
+    }
+
+    ThrottlingBackoff(long baseMillis, long capMillis, Random random) {
+        this.baseMillis = baseMillis;
+        this.capMillis = capMillis;
+        this.random = random;
+    }
+
+    /**
+     * Checks whether the failure, or any of its causes, is the cloud API rejecting requests because of
+     * their rate: HTTP status 429 or one of the throttling error codes of the supported clouds.
+     *
+     * @param throwable the failure
+     * @return {@code true} if the request was throttled
+     */
+    static boolean isThrottling(Throwable throwable) {
+        Throwable cause = throwable;
+        for (int i = 0; cause != null && i < MAX_CAUSES; i++) {
+            if (cause instanceof HttpResponseException) {
+                HttpResponseException e = (HttpResponseException) cause;
+                if (e.getResponse() != null && e.getResponse().getStatusCode() == TOO_MANY_REQUESTS
+                        || containsThrottlingCode(e.getContent())) {
+                    return true;
+                }
+            }
+            if (containsThrottlingCode(cause.getMessage())) {
+                return true;
+            }
+            cause = cause.getCause();
+        }
+        return false;
+    }
+
+    private static boolean containsThrottlingCode(String text) {
+        if (text == null) {
+            return false;
+        }
+        for (String code : THROTTLING_CODES) {
+            if (text.contains(code)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Starts or extends the backoff after a throttled request.
+     *
+     * @return the delay until the next request in milliseconds
+     */
+    synchronized long onThrottled() {
+        long upper = Math.min(capMillis, Math.max(baseMillis, delayMillis) * GROWTH_FACTOR);
+        delayMillis = baseMillis + (long) (random.nextDouble() * (upper - baseMillis));
+        retryAt = Clock.currentTimeMillis() + delayMillis;
+        return delayMillis;
+    }
+
+    /**
+     * Ends the backoff after a successful request.
+     */
+    synchronized void onSuccess() {
+        retryAt = 0;
+        delayMillis /= 2;
+    }
+
+    /**
+     * @return the milliseconds until requests may be sent again, 0 if not backing off
+     */
+    synchronized long remainingMillis() {
+        return Math.max(0, retryAt - Clock.currentTimeMillis());
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2020 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.jclouds.logging;
+
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.util.EmptyStatement;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.logging.Level;
+
+/**
+ * Hands formatted log messages off to a single background thread, so the threads doing cloud requests do
+ * not wait for the log appenders. The queue is bounded; when it is full the message is logged by the
+ * calling thread, so no message is lost. One instance is shared by all loggers of the JVM.
+ */
+final class AsyncLogHandOff {
+
+    private static final int CAPACITY = 1024;
+    private static final Object INSTANCE_LOCK = new Object();
+    private static AsyncLogHandOff instance;
+
+    private final BlockingQueue<LogEntry> queue;
+
+    AsyncLogHandOff(int capacity) {
+        this.queue = new ArrayBlockingQueue<LogEntry>(capacity);
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        }, "hz.jclouds.logging");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    static AsyncLogHandOff getInstance() {
+        synchronized (INSTANCE_LOCK) {
+            if (instance == null) {
+                instance = new AsyncLogHandOff(CAPACITY);
+            }
+            return instance;
+        }
+    }
+
+    void log(ILogger logger, Level level, String message, Throwable throwable) {
+        if (!queue.offer(new LogEntry(logger, level, message, throwable))) {
+            write(logger, level, message, throwable);
+        }
+    }
+
+    private void drain() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                LogEntry entry = queue.take();
+                try {
+                    write(entry.logger, entry.level, entry.message, entry.throwable);
+                } catch (RuntimeException e) {
+                    // a failing appender must not stop the hand-off
+                    EmptyStatement.ignore(e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void write(ILogger logger, Level level, String message, Throwable throwable) {
+        if (throwable == null) {
+            logger.log(level, message);
+        } else {
+            logger.log(level, message, throwable);
+        }
+    }
+
+    /**
+     * A message waiting to be logged.
+     */
+    private static final class LogEntry {
+
+        private final ILogger logger;
+        private final Level level;
+        private final String message;
+        private final Throwable throwable;
+
+        LogEntry(ILogger logger, Level level, String message, Throwable throwable) {
+            this.logger = logger;
+            this.level = level;
+            this.message = message;
+            this.throwable = throwable;
+        }
+    }
+}
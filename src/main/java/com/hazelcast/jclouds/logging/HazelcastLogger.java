@@ -23,6 +23,10 @@ import com.hazelcast.logging.ILogger;
 
 /**
  * Bridges the jclouds logging framework to Hazelcast logging.
+ * <p>
+ * Messages are only formatted if their level is enabled, patterns using only {@code %s} (as jclouds does)
+ * are formatted without {@link String#format(String, Object...)}. Enabled messages are optionally handed
+ * off to a background thread.
  */
 public class HazelcastLogger implements Logger {
 
@@ -30,18 +34,41 @@ public class HazelcastLogger implements Logger {
      * Creates the jclouds logger that bridges messages to Hazelcast.
      */
     public static class Factory implements LoggerFactory {
+
+        private final boolean asyncLogging;
+
+        public Factory() {
+            this(false);
+        }
+
+        /**
+         * @param asyncLogging whether enabled messages are handed off to a background thread
+         */
+        public Factory(boolean asyncLogging) {
+            this.asyncLogging = asyncLogging;
+        }
+
         public Logger getLogger(String category) {
             return new HazelcastLogger(category,
-                    com.hazelcast.logging.Logger.getLogger(category));
+                    com.hazelcast.logging.Logger.getLogger(category),
+                    asyncLogging ? AsyncLogHandOff.getInstance() : null);
         }
     }
 
+    private static final int ARGUMENT_LENGTH_ESTIMATE = 16;
+
     private final ILogger logger;
     private final String category;
+    private final AsyncLogHandOff handOff;
 
     public HazelcastLogger(String category, ILogger logger) {
+        this(category, logger, null);
+    }
+
+    HazelcastLogger(String category, ILogger logger, AsyncLogHandOff handOff) {
         this.logger = logger;
         this.category = category;
+        this.handOff = handOff;
     }
 
     @Override
@@ -51,7 +78,7 @@ public class HazelcastLogger implements Logger {
 
     @Override
     public void trace(String message, Object... args) {
-        logger.finest(String.format(message, args));
+        log(Level.FINEST, null, message, args);
     }
 
     @Override
@@ -61,7 +88,7 @@ public class HazelcastLogger implements Logger {
 
     @Override
     public void debug(String message, Object... args) {
-        logger.fine(String.format(message, args));
+        log(Level.FINE, null, message, args);
     }
 
     @Override
@@ -71,7 +98,7 @@ public class HazelcastLogger implements Logger {
 
     @Override
     public void info(String message, Object... args) {
-        logger.info(String.format(message, args));
+        log(Level.INFO, null, message, args);
     }
 
     @Override
@@ -81,12 +108,12 @@ public class HazelcastLogger implements Logger {
 
     @Override
     public void warn(String message, Object... args) {
-        logger.warning(String.format(message, args));
+        log(Level.WARNING, null, message, args);
     }
 
     @Override
     public void warn(Throwable throwable, String message, Object... args) {
-        logger.warning(String.format(message, args), throwable);
+        log(Level.WARNING, throwable, message, args);
     }
 
     @Override
@@ -96,12 +123,12 @@ public class HazelcastLogger implements Logger {
 
     @Override
     public void error(String message, Object... args) {
-        logger.severe(String.format(message, args));
+        log(Level.SEVERE, null, message, args);
     }
 
     @Override
     public void error(Throwable throwable, String message, Object... args) {
-        logger.severe(String.format(message, args), throwable);
+        log(Level.SEVERE, throwable, message, args);
     }
 
     @Override
@@ -109,4 +136,47 @@ public class HazelcastLogger implements Logger {
         return logger.isLoggable(Level.SEVERE);
     }
 
+    private void log(Level level, Throwable throwable, String message, Object[] args) {
+        if (!logger.isLoggable(level)) {
+            return;
+        }
+        String formatted = format(message, args);
+        if (handOff != null) {
+            handOff.log(logger, level, formatted, throwable);
+        } else if (throwable == null) {
+            logger.log(level, formatted);
+        } else {
+            logger.log(level, formatted, throwable);
+        }
+    }
+
+    /**
+     * Formats patterns containing only {@code %s}, {@code %n} and {@code %%} directly and falls back to
+     * {@link String#format(String, Object...)} for anything else, so the results are the same.
+     */
+    static String format(String message, Object... args) {
+        int argCount = args == null ? 0 : args.length;
+        StringBuilder sb = new StringBuilder(message.length() + argCount * ARGUMENT_LENGTH_ESTIMATE);
+        int argIndex = 0;
+        int length = message.length();
+        int i = 0;
+        while (i < length) {
+            char c = message.charAt(i++);
+            if (c != '%') {
+                sb.append(c);
+                continue;
+            }
+            char conversion = i < length ? message.charAt(i++) : 0;
+            if (conversion == 's' && argIndex < argCount) {
+                sb.append(args[argIndex++]);
+            } else if (conversion == '%') {
+                sb.append('%');
+            } else if (conversion == 'n') {
+                sb.append(System.getProperty("line.separator"));
+            } else {
+                return String.format(message, args);
+            }
+        }
+        return sb.toString();
+    }
 }
@@ -23,9 +23,22 @@ import org.jclouds.logging.config.LoggingModule;
  */
 public class HazelcastLoggingModule extends LoggingModule {
 
+    private final boolean asyncLogging;
+
+    public HazelcastLoggingModule() {
+        this(false);
+    }
+
+    /**
+     * @param asyncLogging whether enabled jclouds log messages are handed off to a background thread
+     */
+    public HazelcastLoggingModule(boolean asyncLogging) {
+        this.asyncLogging = asyncLogging;
+    }
+
     @Override
     public LoggerFactory createLoggerFactory() {
-        return new HazelcastLogger.Factory();
+        return new HazelcastLogger.Factory(asyncLogging);
     }
 
 }
@@ -0,0 +1,56 @@
+package com.hazelcast.jclouds;
+
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category(QuickTest.class)
+public class AddressMapperTest extends HazelcastTestSupport {
+
+    private final AddressMapper addressMapper = new AddressMapper(2, 60000, 5000, 16);
+
+    @After
+    public void tearDown() {
+        addressMapper.shutdown();
+    }
+
+    @Test
+    public void testLiteralsAreParsed() throws Exception {
+        Map<String, InetAddress> mapped = addressMapper.map(Arrays.asList("10.0.0.1", "::1", null));
+
+        assertEquals(2, mapped.size());
+        assertEquals(InetAddress.getByName("10.0.0.1"), mapped.get("10.0.0.1"));
+        assertEquals(InetAddress.getByName("::1"), mapped.get("::1"));
+    }
+
+    @Test
+    public void testHostNamesAreResolvedAndCached() {
+        InetAddress first = addressMapper.map(Arrays.asList("localhost")).get("localhost");
+        InetAddress second = addressMapper.map(Arrays.asList("localhost")).get("localhost");
+
+        assertTrue(first.isLoopbackAddress());
+        assertSame(first, second);
+    }
+
+    @Test
+    public void testUnresolvableAddressesAreOmitted() {
+        Map<String, InetAddress> mapped = addressMapper.map(Arrays.asList("257.0.0.1", "10.0.0.1"));
+
+        assertFalse(mapped.containsKey("257.0.0.1"));
+        assertTrue(mapped.containsKey("10.0.0.1"));
+    }
+}
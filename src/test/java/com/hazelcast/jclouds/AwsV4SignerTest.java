@@ -0,0 +1,89 @@
+package com.hazelcast.jclouds;
+
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.QuickTest;
+import org.jclouds.aws.domain.SessionCredentials;
+import org.jclouds.domain.Credentials;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category(QuickTest.class)
+public class AwsV4SignerTest extends HazelcastTestSupport {
+
+    private static final String HOST = "ec2.us-east-1.amazonaws.com";
+    private static final String PAYLOAD = "Action=DescribeInstances&Version=2016-11-15";
+    // 2020-01-02T03:04:05Z
+    private static final long TIME_MILLIS = 1577934245000L;
+
+    private final AwsV4Signer signer = new AwsV4Signer("ec2");
+
+    @Test
+    public void testSignWithAccessKey() {
+        Map<String, String> headers = signer.sign(HOST, "/", "us-east-1", PAYLOAD, new Credentials("access", "secret"),
+                TIME_MILLIS);
+
+        assertEquals("20200102T030405Z", headers.get("X-Amz-Date"));
+        assertEquals(AwsV4Signer.CONTENT_TYPE, headers.get("Content-Type"));
+        assertFalse(headers.containsKey("X-Amz-Security-Token"));
+        assertEquals("AWS4-HMAC-SHA256 Credential=access/20200102/us-east-1/ec2/aws4_request,"
+                        + " SignedHeaders=content-type;host;x-amz-date,"
+                        + " Signature=4eb2bddb9b5ee191923d3564913e4b6b8e9168edaec98133b21f3153c939dcd0",
+                headers.get("Authorization"));
+    }
+
+    @Test
+    public void testSignWithSessionCredentials() {
+        SessionCredentials credentials = SessionCredentials.builder()
+                .accessKeyId("access").secretAccessKey("secret").sessionToken("session-token").build();
+
+        Map<String, String> headers = signer.sign(HOST, "/", "us-east-1", PAYLOAD, credentials, TIME_MILLIS);
+
+        assertEquals("session-token", headers.get("X-Amz-Security-Token"));
+        assertEquals("AWS4-HMAC-SHA256 Credential=access/20200102/us-east-1/ec2/aws4_request,"
+                        + " SignedHeaders=content-type;host;x-amz-date;x-amz-security-token,"
+                        + " Signature=24f21ae4d6245dfa2d56a337798f0917b5d44617d7c3ce05155f95cf6c1e610a",
+                headers.get("Authorization"));
+    }
+
+    @Test
+    public void testSignEndpointPath() {
+        Map<String, String> headers = signer.sign(HOST, "/ec2/", "us-east-1", PAYLOAD, new Credentials("access", "secret"),
+                TIME_MILLIS);
+
+        assertEquals("AWS4-HMAC-SHA256 Credential=access/20200102/us-east-1/ec2/aws4_request,"
+                        + " SignedHeaders=content-type;host;x-amz-date,"
+                        + " Signature=c283eab789b27b9062f1e313a24a64b0c1cec62ca30dc96f39caff87881bc17b",
+                headers.get("Authorization"));
+    }
+
+    @Test
+    public void testSignEmptyPathAsRootPath() {
+        Credentials credentials = new Credentials("access", "secret");
+
+        assertEquals(signer.sign(HOST, "/", "us-east-1", PAYLOAD, credentials, TIME_MILLIS),
+                signer.sign(HOST, "", "us-east-1", PAYLOAD, credentials, TIME_MILLIS));
+    }
+
+    @Test
+    public void testSignWithNonGregorianDefaultLocale() {
+        Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(new Locale("th", "TH"));
+        try {
+            Map<String, String> headers = signer.sign(HOST, "/", "us-east-1", PAYLOAD, new Credentials("access", "secret"),
+                    TIME_MILLIS);
+
+            assertEquals("20200102T030405Z", headers.get("X-Amz-Date"));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.hazelcast.jclouds;
+
+import com.google.common.base.Supplier;
+import com.hazelcast.test.AssertTask;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.QuickTest;
+import org.jclouds.aws.domain.SessionCredentials;
+import org.jclouds.domain.Credentials;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category(QuickTest.class)
+public class CachingCredentialsSupplierTest extends HazelcastTestSupport {
+
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final long SECOND = TimeUnit.SECONDS.toMillis(1);
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+
+    @Test
+    public void testCredentialsAreCachedUntilRefreshWindow() {
+        CountingLoader loader = new CountingLoader(HOUR);
+        CachingCredentialsSupplier supplier = new CachingCredentialsSupplier(loader, MINUTE, MINUTE);
+
+        Credentials first = supplier.get();
+        Credentials second = supplier.get();
+
+        assertSame(first, second);
+        assertEquals(1, loader.loads.get());
+    }
+
+    @Test
+    public void testExpiredCredentialsAreReloaded() {
+        CountingLoader loader = new CountingLoader(-MINUTE);
+        CachingCredentialsSupplier supplier = new CachingCredentialsSupplier(loader, MINUTE, MINUTE);
+
+        supplier.get();
+        supplier.get();
+
+        assertEquals(2, loader.loads.get());
+    }
+
+    @Test
+    public void testCredentialsAreRefreshedInBackgroundWithinRefreshWindow() {
+        final CountingLoader loader = new CountingLoader(2 * SECOND);
+        final CachingCredentialsSupplier supplier = new CachingCredentialsSupplier(loader, MINUTE, MINUTE);
+
+        final Credentials first = supplier.get();
+
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() {
+                assertNotSame(first, supplier.get());
+            }
+        });
+    }
+
+    @Test
+    public void testCredentialsShorterLivedThanRefreshWindowAreNotRefreshedRightAway() {
+        CountingLoader loader = new CountingLoader(MINUTE);
+        CachingCredentialsSupplier supplier = new CachingCredentialsSupplier(loader, HOUR, MINUTE);
+
+        Credentials first = supplier.get();
+        Credentials second = supplier.get();
+
+        assertSame(first, second);
+        assertEquals(1, loader.loads.get());
+    }
+
+    @Test
+    public void testCredentialsWithoutExpirationUseDefaultTtl() {
+        CountingLoader loader = new CountingLoader(null);
+        CachingCredentialsSupplier supplier = new CachingCredentialsSupplier(loader, 0, HOUR);
+
+        supplier.get();
+        supplier.get();
+
+        assertEquals(1, loader.loads.get());
+    }
+
+    private static class CountingLoader implements Supplier<SessionCredentials> {
+
+        private final AtomicInteger loads = new AtomicInteger();
+        private final Long validForMillis;
+
+        CountingLoader(Long validForMillis) {
+            this.validForMillis = validForMillis;
+        }
+
+        @Override
+        public SessionCredentials get() {
+            int load = loads.incrementAndGet();
+            SessionCredentials.Builder builder = new SessionCredentials.Builder()
+                    .accessKeyId("key" + load)
+                    .secretAccessKey("secret")
+                    .sessionToken("token");
+            if (validForMillis != null) {
+                builder.expiration(new Date(System.currentTimeMillis() + validForMillis));
+            }
+            return builder.build();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.hazelcast.jclouds;
+
+import com.google.common.base.Supplier;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.QuickTest;
+import org.jclouds.compute.ComputeServiceContext;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category(QuickTest.class)
+public class ComputeServiceContextPoolTest extends HazelcastTestSupport {
+
+    private final ComputeServiceContextPool pool = new ComputeServiceContextPool();
+    private final AtomicInteger built = new AtomicInteger();
+
+    @Test
+    public void whenSameKey_thenContextBuiltOnceAndShared() {
+        ComputeServiceContextPool.Lease first = pool.acquire(key("credential"), factory());
+        ComputeServiceContextPool.Lease second = pool.acquire(key("credential"), factory());
+
+        assertSame(first.getContext(), second.getContext());
+        assertEquals(1, built.get());
+        assertEquals(1, pool.size());
+    }
+
+    @Test
+    public void whenDifferentCredential_thenSeparateContexts() {
+        ComputeServiceContextPool.Lease first = pool.acquire(key("credential"), factory());
+        ComputeServiceContextPool.Lease second = pool.acquire(key("other-credential"), factory());
+
+        assertNotSame(first.getContext(), second.getContext());
+        assertEquals(2, built.get());
+    }
+
+    @Test
+    public void whenDifferentOverrides_thenSeparateContexts() {
+        Properties overrides = new Properties();
+        overrides.setProperty("jclouds.regions", "us-east-1");
+        pool.acquire(key("credential"), factory());
+        pool.acquire(new ComputeServiceContextPool.Key("aws-ec2", null, "identity", "credential", null, false, overrides),
+                factory());
+
+        assertEquals(2, pool.size());
+    }
+
+    @Test
+    public void whenLastLeaseReleased_thenContextClosed() {
+        ComputeServiceContextPool.Lease first = pool.acquire(key("credential"), factory());
+        ComputeServiceContextPool.Lease second = pool.acquire(key("credential"), factory());
+        ComputeServiceContext context = first.getContext();
+
+        first.release();
+        first.release();
+        verify(context, never()).close();
+
+        second.release();
+        verify(context).close();
+        assertEquals(0, pool.size());
+    }
+
+    @Test
+    public void whenContextReleased_thenNextLeaseBuildsNewContext() {
+        ComputeServiceContextPool.Lease first = pool.acquire(key("credential"), factory());
+        first.release();
+
+        ComputeServiceContextPool.Lease second = pool.acquire(key("credential"), factory());
+
+        assertNotSame(first.getContext(), second.getContext());
+        assertEquals(2, built.get());
+    }
+
+    @Test
+    public void whenBuildFails_thenNotPooled() {
+        try {
+            pool.acquire(key("credential"), new Supplier<ComputeServiceContext>() {
+                @Override
+                public ComputeServiceContext get() {
+                    throw new IllegalStateException("expected");
+                }
+            });
+            fail();
+        } catch (IllegalStateException expected) {
+            assertEquals(0, pool.size());
+        }
+
+        pool.acquire(key("credential"), factory());
+        assertEquals(1, built.get());
+    }
+
+    private static ComputeServiceContextPool.Key key(String credential) {
+        return new ComputeServiceContextPool.Key("aws-ec2", null, "identity", credential, null, false, new Properties());
+    }
+
+    private Supplier<ComputeServiceContext> factory() {
+        return new Supplier<ComputeServiceContext>() {
+            @Override
+            public ComputeServiceContext get() {
+                built.incrementAndGet();
+                return mock(ComputeServiceContext.class);
+            }
+        };
+    }
+}
@@ -0,0 +1,87 @@
+package com.hazelcast.jclouds;
+
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category(QuickTest.class)
+public class DiscoveryMetricsTest extends HazelcastTestSupport {
+
+    @Test
+    public void testCountersAndGauges() {
+        DiscoveryMetrics metrics = new DiscoveryMetrics();
+
+        metrics.recordList(1000, 2, 100);
+        metrics.recordFilter(1000, 90);
+        metrics.recordMap(1000, 9, 1);
+        metrics.recordFailure();
+        DiscoveryMetricsSnapshot snapshot = metrics.snapshot();
+
+        assertEquals(1, snapshot.getDiscoveries());
+        assertEquals(1, snapshot.getFailures());
+        assertEquals(2, snapshot.getListCalls());
+        assertEquals(100, snapshot.getNodesListed());
+        assertEquals(90, snapshot.getNodesFilteredOut());
+        assertEquals(1, snapshot.getNodesUnresolvable());
+        assertEquals(9, snapshot.getDiscoveredNodes());
+    }
+
+    @Test
+    public void testLatencyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(50));
+
+        DiscoveryMetricsSnapshot.Latency latency = histogram.snapshot();
+
+        assertEquals(100, latency.getCount());
+        assertEquals(599, latency.getMeanMicros());
+        // 100 micros fall into the bucket up to 128 micros
+        assertEquals(128, latency.getMedianMicros());
+        assertEquals(128, latency.getP99Micros());
+        assertEquals(50000, latency.getMaxMicros());
+    }
+
+    @Test
+    public void testEmptyLatencyHistogram() {
+        DiscoveryMetricsSnapshot.Latency latency = new LatencyHistogram().snapshot();
+
+        assertEquals(0, latency.getCount());
+        assertEquals(0, latency.getMeanMicros());
+        assertEquals(0, latency.getP99Micros());
+    }
+
+    @Test
+    public void testMBeanRegistration() throws Exception {
+        DiscoveryMetrics metrics = new DiscoveryMetrics();
+        metrics.recordMap(1000, 3, 0);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        metrics.registerMBean();
+        ObjectName name = metrics.getObjectName();
+        try {
+            assertEquals(3, server.getAttribute(name, "DiscoveredNodes"));
+            assertEquals(1L, server.getAttribute(name, "Discoveries"));
+        } finally {
+            metrics.unregisterMBean();
+        }
+
+        assertNull(metrics.getObjectName());
+        assertFalse(server.isRegistered(name));
+    }
+}
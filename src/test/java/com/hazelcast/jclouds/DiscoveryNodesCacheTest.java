@@ -0,0 +1,151 @@
+package com.hazelcast.jclouds;
+
+import com.hazelcast.core.HazelcastException;
+import com.hazelcast.nio.Address;
+import com.hazelcast.spi.discovery.DiscoveryNode;
+import com.hazelcast.spi.discovery.SimpleDiscoveryNode;
+import com.hazelcast.test.AssertTask;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category(QuickTest.class)
+public class DiscoveryNodesCacheTest extends HazelcastTestSupport {
+
+    private final AtomicInteger loadCount = new AtomicInteger();
+    private DiscoveryNodesCache cache;
+
+    @After
+    public void cleanup() {
+        if (cache != null) {
+            cache.shutdown();
+        }
+    }
+
+    @Test
+    public void testFirstGetLoadsSynchronously() {
+        cache = new DiscoveryNodesCache(new CountingLoader(), 60000, 0);
+
+        List<DiscoveryNode> nodes = cache.get();
+
+        assertEquals(1, nodes.size());
+        assertEquals(1, loadCount.get());
+    }
+
+    @Test
+    public void testFreshSnapshotIsServedWithoutLoading() {
+        cache = new DiscoveryNodesCache(new CountingLoader(), 60000, 0);
+
+        List<DiscoveryNode> first = cache.get();
+        List<DiscoveryNode> second = cache.get();
+
+        assertSame(first, second);
+        assertEquals(1, loadCount.get());
+    }
+
+    @Test
+    public void testExpiredSnapshotIsServedAndRefreshedInBackground() {
+        cache = new DiscoveryNodesCache(new CountingLoader(), 1, 0);
+
+        List<DiscoveryNode> first = cache.get();
+        sleepMillis(5);
+        List<DiscoveryNode> stale = cache.get();
+
+        assertSame(first, stale);
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() {
+                assertEquals(2, loadCount.get());
+            }
+        });
+    }
+
+    @Test
+    public void testPeriodicRefresh() {
+        cache = new DiscoveryNodesCache(new CountingLoader(), 60000, 10);
+        cache.get();
+        cache.start();
+
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() {
+                assertTrue(loadCount.get() >= 3);
+            }
+        });
+    }
+
+    @Test
+    public void testFailedBackgroundRefreshKeepsPreviousSnapshot() {
+        final FailingAfterFirstLoader loader = new FailingAfterFirstLoader();
+        cache = new DiscoveryNodesCache(loader, 1, 0);
+
+        final List<DiscoveryNode> first = cache.get();
+        sleepMillis(5);
+        cache.get();
+
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() {
+                assertTrue(loader.calls.get() >= 2);
+                assertSame(first, cache.get());
+            }
+        });
+    }
+
+    @Test(expected = HazelcastException.class)
+    public void testFailedInitialLoadIsPropagated() {
+        cache = new DiscoveryNodesCache(new FailingAfterFirstLoader() {
+            @Override
+            public List<DiscoveryNode> call() {
+                throw new HazelcastException("expected");
+            }
+        }, 60000, 0);
+
+        cache.get();
+    }
+
+    private static DiscoveryNode newNode() {
+        try {
+            return new SimpleDiscoveryNode(new Address("127.0.0.1", 5701));
+        } catch (UnknownHostException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private class CountingLoader implements Callable<List<DiscoveryNode>> {
+
+        @Override
+        public List<DiscoveryNode> call() {
+            loadCount.incrementAndGet();
+            return Collections.singletonList(newNode());
+        }
+    }
+
+    private static class FailingAfterFirstLoader implements Callable<List<DiscoveryNode>> {
+
+        final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public List<DiscoveryNode> call() {
+            if (calls.incrementAndGet() > 1) {
+                throw new HazelcastException("expected");
+            }
+            return Collections.singletonList(newNode());
+        }
+    }
+}
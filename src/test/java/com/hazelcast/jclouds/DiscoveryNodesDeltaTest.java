@@ -0,0 +1,112 @@
+package com.hazelcast.jclouds;
+
+import com.hazelcast.nio.Address;
+import com.hazelcast.spi.discovery.DiscoveryNode;
+import com.hazelcast.spi.discovery.SimpleDiscoveryNode;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.net.UnknownHostException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category(QuickTest.class)
+public class DiscoveryNodesDeltaTest extends HazelcastTestSupport {
+
+    private DiscoveryNodesDelta delta;
+    private DiscoveryNodeListener listener;
+
+    @Before
+    public void setup() {
+        delta = new DiscoveryNodesDelta();
+        listener = mock(DiscoveryNodeListener.class);
+        delta.addListener(listener);
+    }
+
+    @Test
+    public void testFirstApplyReportsAllNodesAsAdded() throws Exception {
+        DiscoveryNode node1 = newNode("10.0.0.1");
+        DiscoveryNode node2 = newNode("10.0.0.2");
+
+        delta.apply(nodes("i-1", node1, "i-2", node2));
+
+        verify(listener).nodeAdded("i-1", node1);
+        verify(listener).nodeAdded("i-2", node2);
+        verifyNoMoreInteractions(listener);
+    }
+
+    @Test
+    public void testUnchangedNodesAreNotReported() throws Exception {
+        delta.apply(nodes("i-1", newNode("10.0.0.1"), "i-2", newNode("10.0.0.2")));
+        DiscoveryNodeListener secondListener = mock(DiscoveryNodeListener.class);
+        delta.addListener(secondListener);
+
+        delta.apply(nodes("i-1", newNode("10.0.0.1"), "i-2", newNode("10.0.0.2")));
+
+        verifyNoMoreInteractions(secondListener);
+    }
+
+    @Test
+    public void testAddedRemovedAndChangedNodes() throws Exception {
+        DiscoveryNode removed = newNode("10.0.0.1");
+        DiscoveryNode previous = newNode("10.0.0.2");
+        delta.apply(nodes("i-1", removed, "i-2", previous));
+
+        DiscoveryNode current = newNode("10.0.0.20");
+        DiscoveryNode added = newNode("10.0.0.3");
+        delta.apply(nodes("i-2", current, "i-3", added));
+
+        verify(listener).nodeRemoved("i-1", removed);
+        verify(listener).nodeAddressChanged("i-2", previous, current);
+        verify(listener).nodeAdded("i-3", added);
+    }
+
+    @Test
+    public void testRemovedListenerIsNotNotified() throws Exception {
+        delta.removeListener(listener);
+
+        delta.apply(nodes("i-1", newNode("10.0.0.1"), "i-2", newNode("10.0.0.2")));
+
+        verify(listener, never()).nodeAdded(anyString(), any(DiscoveryNode.class));
+    }
+
+    @Test
+    public void testFailingListenerDoesNotStopNotification() throws Exception {
+        DiscoveryNodeListener failingListener = mock(DiscoveryNodeListener.class);
+        doThrow(new RuntimeException("expected")).when(failingListener).nodeAdded(anyString(), any(DiscoveryNode.class));
+        DiscoveryNodesDelta delta = new DiscoveryNodesDelta();
+        delta.addListener(failingListener);
+        delta.addListener(listener);
+
+        DiscoveryNode node = newNode("10.0.0.1");
+        delta.apply(nodes("i-1", node, "i-2", newNode("10.0.0.2")));
+
+        verify(listener).nodeAdded(eq("i-1"), eq(node));
+    }
+
+    private static Map<String, DiscoveryNode> nodes(String id1, DiscoveryNode node1, String id2, DiscoveryNode node2) {
+        Map<String, DiscoveryNode> nodes = new LinkedHashMap<String, DiscoveryNode>();
+        nodes.put(id1, node1);
+        nodes.put(id2, node2);
+        return nodes;
+    }
+
+    private static DiscoveryNode newNode(String privateAddress) throws UnknownHostException {
+        return new SimpleDiscoveryNode(new Address(privateAddress, 5701));
+    }
+}
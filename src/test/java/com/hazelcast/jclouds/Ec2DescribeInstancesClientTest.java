@@ -0,0 +1,196 @@
+package com.hazelcast.jclouds;
+
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.io.ByteStreams;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.QuickTest;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.domain.Credentials;
+import org.jclouds.http.HttpResponseException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category(QuickTest.class)
+public class Ec2DescribeInstancesClientTest extends HazelcastTestSupport {
+
+    private static final String FIRST_PAGE = "<DescribeInstancesResponse xmlns=\"http://ec2.amazonaws.com/doc/2016-11-15/\">"
+            + "<requestId>1</requestId><reservationSet><item><reservationId>r-1</reservationId><instancesSet>"
+            + instance("i-1", "running", "10.0.0.1", "54.0.0.1", "hazelcast")
+            + instance("i-2", "running", "10.0.0.2", null, "web")
+            + "</instancesSet></item></reservationSet><nextToken>page-2</nextToken></DescribeInstancesResponse>";
+    private static final String SECOND_PAGE = "<DescribeInstancesResponse xmlns=\"http://ec2.amazonaws.com/doc/2016-11-15/\">"
+            + "<requestId>2</requestId><reservationSet><item><reservationId>r-2</reservationId><instancesSet>"
+            + instance("i-3", "stopped", "10.0.0.3", null, "hazelcast")
+            + "</instancesSet></item></reservationSet></DescribeInstancesResponse>";
+
+    private final List<Map<String, String>> requests = new CopyOnWriteArrayList<Map<String, String>>();
+    private volatile boolean throttling;
+    private HttpServer server;
+    private String endpoint;
+
+    @Before
+    public void setup() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                Map<String, String> parameters = parse(new String(ByteStreams.toByteArray(exchange.getRequestBody()), "UTF-8"));
+                String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+                parameters.put("Authorization", authorization);
+                requests.add(parameters);
+                if (throttling) {
+                    respond(exchange, 503, "<Response><Errors><Error><Code>RequestLimitExceeded</Code>"
+                            + "<Message>Request limit exceeded.</Message></Error></Errors></Response>");
+                } else if (authorization == null || !authorization.startsWith("AWS4-HMAC-SHA256 Credential=identity/")) {
+                    respond(exchange, 401, "<Response><Errors><Error><Code>AuthFailure</Code></Error></Errors></Response>");
+                } else {
+                    respond(exchange, 200, parameters.containsKey("NextToken") ? SECOND_PAGE : FIRST_PAGE);
+                }
+            }
+        });
+        server.start();
+        endpoint = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testInstancesOfAllPagesListed() throws IOException {
+        AtomicInteger calls = new AtomicInteger();
+        List<DescribeInstancesParser.Instance> instances = newClient().describeInstances("us-east-1", calls);
+
+        assertEquals(3, instances.size());
+        assertEquals(2, requests.size());
+        assertEquals(2, calls.get());
+        assertEquals("page-2", requests.get(1).get("NextToken"));
+        DescribeInstancesParser.Instance first = instances.get(0);
+        assertEquals("i-1", first.id);
+        assertEquals("running", first.state);
+        assertEquals("us-east-1a", first.availabilityZone);
+        assertEquals("10.0.0.1", first.privateIpAddress);
+        assertEquals("54.0.0.1", first.publicIpAddress);
+        assertEquals("dev", first.tags.get("cluster"));
+        assertEquals("jclouds#hazelcast", first.securityGroups.get(0));
+        assertEquals(1, first.securityGroups.size());
+        assertNull(instances.get(1).publicIpAddress);
+        assertEquals("stopped", instances.get(2).state);
+    }
+
+    @Test
+    public void testFiltersSentAsRequestParameters() throws IOException {
+        newClient().describeInstances("us-east-1", new AtomicInteger());
+
+        Map<String, String> request = requests.get(0);
+        assertEquals("DescribeInstances", request.get("Action"));
+        assertEquals(Ec2DescribeInstancesClient.API_VERSION, request.get("Version"));
+        assertEquals("instance-state-name", request.get("Filter.1.Name"));
+        assertEquals("running", request.get("Filter.1.Value.1"));
+        assertEquals("tag:cluster", request.get("Filter.2.Name"));
+        assertEquals("dev", request.get("Filter.2.Value.1"));
+        assertTrue(request.get("Authorization").contains("/us-east-1/ec2/aws4_request"));
+    }
+
+    @Test
+    public void testThrottlingErrorRecognized() throws IOException {
+        throttling = true;
+        try {
+            newClient().describeInstances("us-east-1", new AtomicInteger());
+            fail("DescribeInstances should fail");
+        } catch (HttpResponseException e) {
+            assertEquals(503, e.getResponse().getStatusCode());
+            assertTrue(ThrottlingBackoff.isThrottling(e));
+        }
+    }
+
+    @Test
+    public void whenDirectEngineConfigured_thenNodesListedWithoutComputeService() {
+        Map<String, Comparable> properties = new HashMap<String, Comparable>();
+        properties.put("provider", "aws-ec2");
+        properties.put("engine", "direct");
+        properties.put("endpoint", endpoint);
+        properties.put("identity", "identity");
+        properties.put("credential", "credential");
+        properties.put("regions", "us-east-1");
+        properties.put("group", "hazelcast");
+        properties.put("tag-keys", "cluster");
+        properties.put("tag-values", "dev");
+        ComputeServiceBuilder builder = new ComputeServiceBuilder(properties);
+
+        assertNull(builder.build());
+        int count = 0;
+        for (NodeMetadata node : builder.getFilteredNodes()) {
+            assertEquals("hazelcast", node.getGroup());
+            count++;
+        }
+        assertEquals(2, count);
+        builder.destroy();
+    }
+
+    private Ec2DescribeInstancesClient newClient() {
+        return new Ec2DescribeInstancesClient(endpoint, Suppliers.ofInstance(new Credentials("identity", "secret")),
+                ImmutableMultimap.of("instance-state-name", "running", "tag:cluster", "dev"), 1000, 1000);
+    }
+
+    private static String instance(String id, String state, String privateIp, String publicIp, String group) {
+        return "<item><instanceId>" + id + "</instanceId><imageId>ami-1</imageId>"
+                + "<instanceState><code>16</code><name>" + state + "</name></instanceState>"
+                + "<privateDnsName>ip-" + id + ".ec2.internal</privateDnsName>"
+                + "<placement><availabilityZone>us-east-1a</availabilityZone><tenancy>default</tenancy></placement>"
+                + "<privateIpAddress>" + privateIp + "</privateIpAddress>"
+                + (publicIp != null ? "<ipAddress>" + publicIp + "</ipAddress>" : "")
+                + "<groupSet><item><groupId>sg-1</groupId><groupName>jclouds#" + group + "</groupName></item></groupSet>"
+                + "<tagSet><item><key>cluster</key><value>dev</value></item></tagSet>"
+                + "<networkInterfaceSet><item><privateIpAddress>10.1.1.1</privateIpAddress>"
+                + "<groupSet><item><groupName>other</groupName></item></groupSet>"
+                + "<association><publicIp>54.1.1.1</publicIp></association></item></networkInterfaceSet>"
+                + "</item>";
+    }
+
+    private static Map<String, String> parse(String body) throws IOException {
+        Map<String, String> parameters = new HashMap<String, String>();
+        for (String pair : body.split("&")) {
+            int separator = pair.indexOf('=');
+            parameters.put(URLDecoder.decode(pair.substring(0, separator), "UTF-8"),
+                    URLDecoder.decode(pair.substring(separator + 1), "UTF-8"));
+        }
+        return parameters;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes("UTF-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        OutputStream out = exchange.getResponseBody();
+        try {
+            out.write(bytes);
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.hazelcast.jclouds;
+
+import com.hazelcast.config.InvalidConfigurationException;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.QuickTest;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category(QuickTest.class)
+public class Ec2DirectNodeListerTest extends HazelcastTestSupport {
+
+    private final LocationResolver locationResolver = new LocationResolver();
+
+    @Test
+    public void testConfiguredRegionsQueried() {
+        Set<String> regions = new LinkedHashSet<String>(asList("us-east-1", "eu-west-1"));
+
+        assertSame(regions, Ec2DirectNodeLister.resolveRegions(regions, Collections.singleton("us-east-1a")));
+    }
+
+    @Test
+    public void testRegionsOfZonesQueriedWhenNoRegionConfigured() {
+        Set<String> zones = new LinkedHashSet<String>(asList("us-east-1a", "us-east-1b", "eu-west-1c"));
+
+        Set<String> regions = Ec2DirectNodeLister.resolveRegions(Collections.<String>emptySet(), zones);
+
+        assertEquals(new LinkedHashSet<String>(asList("us-east-1", "eu-west-1")), regions);
+    }
+
+    @Test(expected = InvalidConfigurationException.class)
+    public void testRegionsOrZonesRequired() {
+        Ec2DirectNodeLister.resolveRegions(Collections.<String>emptySet(), Collections.<String>emptySet());
+    }
+
+    @Test
+    public void testInstanceConvertedToNodeMetadata() {
+        Ec2DirectNodeLister lister = new Ec2DirectNodeLister(null, Collections.singleton("us-east-1"));
+        DescribeInstancesParser.Instance instance = new DescribeInstancesParser.Instance();
+        instance.id = "i-1";
+        instance.state = "running";
+        instance.availabilityZone = "us-east-1a";
+        instance.privateIpAddress = "10.0.0.1";
+        instance.privateDnsName = "ip-10-0-0-1.ec2.internal";
+        instance.tags.put("Name", "member-1");
+        instance.securityGroups.add("default");
+        instance.securityGroups.add("jclouds#hazelcast");
+
+        NodeMetadata node = lister.toNodeMetadata("us-east-1", instance);
+
+        assertEquals("us-east-1/i-1", node.getId());
+        assertEquals("member-1", node.getName());
+        assertEquals("hazelcast", node.getGroup());
+        assertEquals(NodeMetadata.Status.RUNNING, node.getStatus());
+        assertEquals("us-east-1a", locationResolver.getZone(node.getLocation()));
+        assertEquals("us-east-1", locationResolver.getRegion(node.getLocation()));
+        assertEquals(Collections.singleton("10.0.0.1"), node.getPrivateAddresses());
+        assertTrue(node.getPublicAddresses().isEmpty());
+    }
+
+    @Test
+    public void testInstanceWithoutJcloudsGroupHasNoGroup() {
+        Ec2DirectNodeLister lister = new Ec2DirectNodeLister(null, Collections.singleton("us-east-1"));
+        DescribeInstancesParser.Instance instance = new DescribeInstancesParser.Instance();
+        instance.id = "i-1";
+        instance.state = "stopped";
+        instance.securityGroups.add("default");
+
+        NodeMetadata node = lister.toNodeMetadata("us-east-1", instance);
+
+        assertNull(node.getGroup());
+        assertEquals(NodeMetadata.Status.SUSPENDED, node.getStatus());
+    }
+}
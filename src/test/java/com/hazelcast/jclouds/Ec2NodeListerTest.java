@@ -0,0 +1,112 @@
+package com.hazelcast.jclouds;
+
+import com.google.common.base.Function;
+import com.google.common.base.Optional;
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Multimap;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.QuickTest;
+import org.jclouds.compute.domain.ComputeMetadata;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.NodeMetadataBuilder;
+import org.jclouds.ec2.EC2Api;
+import org.jclouds.ec2.domain.Reservation;
+import org.jclouds.ec2.domain.RunningInstance;
+import org.jclouds.ec2.features.InstanceApi;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category(QuickTest.class)
+public class Ec2NodeListerTest extends HazelcastTestSupport {
+
+    @Test
+    public void testFilterContainsRunningStateOnly_whenNothingConfigured() {
+        Ec2NodeLister lister = new Ec2NodeLister(new ArrayList<AbstractMap.SimpleImmutableEntry>(),
+                Collections.<String>emptySet());
+
+        Multimap<String, String> filter = lister.getFilter();
+
+        assertEquals(1, filter.size());
+        assertTrue(filter.containsEntry(Ec2NodeLister.INSTANCE_STATE_FILTER, "running"));
+    }
+
+    @Test
+    public void testFilterContainsTagsAndZones() {
+        List<AbstractMap.SimpleImmutableEntry> tagPairs = new ArrayList<AbstractMap.SimpleImmutableEntry>();
+        tagPairs.add(new AbstractMap.SimpleImmutableEntry<String, String>("Owner", "DbAdmin"));
+        tagPairs.add(new AbstractMap.SimpleImmutableEntry<String, String>("Stack", "Production"));
+        Set<String> zones = new LinkedHashSet<String>();
+        zones.add("us-east-1a");
+        zones.add("us-east-1b");
+        Ec2NodeLister lister = new Ec2NodeLister(tagPairs, zones);
+
+        Multimap<String, String> filter = lister.getFilter();
+
+        assertTrue(filter.containsEntry("tag:Owner", "DbAdmin"));
+        assertTrue(filter.containsEntry("tag:Stack", "Production"));
+        assertEquals(2, filter.get(Ec2NodeLister.AVAILABILITY_ZONE_FILTER).size());
+        assertTrue(filter.containsEntry(Ec2NodeLister.AVAILABILITY_ZONE_FILTER, "us-east-1b"));
+    }
+
+    @Test
+    public void testListNodesQueriesEachConfiguredRegionWithFilter() {
+        Ec2NodeLister lister = new Ec2NodeLister(new ArrayList<AbstractMap.SimpleImmutableEntry>(),
+                Collections.<String>emptySet());
+        EC2Api api = mock(EC2Api.class);
+        InstanceApi instanceApi = mock(InstanceApi.class);
+        doReturn(Optional.of(instanceApi)).when(api).getInstanceApi();
+        doReturn(ImmutableSet.of("region1", "region2")).when(api).getConfiguredRegions();
+        RunningInstance instance1 = mock(RunningInstance.class);
+        RunningInstance instance2 = mock(RunningInstance.class);
+        doReturn(reservationOf(instance1)).when(instanceApi).describeInstancesInRegionWithFilter("region1", lister.getFilter());
+        doReturn(reservationOf(instance2)).when(instanceApi).describeInstancesInRegionWithFilter("region2", lister.getFilter());
+        Function<RunningInstance, NodeMetadata> converter = mock(Function.class);
+        doReturn(newNode("node1", "value")).when(converter).apply(instance1);
+        doReturn(newNode("node2", "other")).when(converter).apply(instance2);
+
+        AtomicInteger calls = new AtomicInteger();
+        Set<NodeMetadata> nodes = lister.listNodes(api, converter, new Predicate<ComputeMetadata>() {
+            @Override
+            public boolean apply(ComputeMetadata input) {
+                return "value".equals(input.getUserMetadata().get("key"));
+            }
+        }, calls);
+
+        verify(instanceApi).describeInstancesInRegionWithFilter("region1", lister.getFilter());
+        verify(instanceApi).describeInstancesInRegionWithFilter("region2", lister.getFilter());
+        assertEquals(2, calls.get());
+        assertEquals(1, nodes.size());
+        assertEquals("node1", nodes.iterator().next().getId());
+    }
+
+    private static Set<Reservation<RunningInstance>> reservationOf(RunningInstance instance) {
+        return Collections.singleton(new Reservation<RunningInstance>("region", Collections.<String>emptySet(),
+                Collections.singleton(instance), "owner", "requester", "reservation"));
+    }
+
+    private static NodeMetadata newNode(String id, String tagValue) {
+        return new NodeMetadataBuilder()
+                .id(id)
+                .userMetadata(Collections.singletonMap("key", tagValue))
+                .status(NodeMetadata.Status.RUNNING)
+                .build();
+    }
+}
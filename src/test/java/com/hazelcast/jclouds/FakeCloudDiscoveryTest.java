@@ -0,0 +1,154 @@
+package com.hazelcast.jclouds;
+
+import com.hazelcast.jclouds.fake.FakeCloud;
+import com.hazelcast.spi.discovery.DiscoveryNode;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.QuickTest;
+import com.squareup.okhttp.ConnectionPool;
+import com.squareup.okhttp.OkHttpClient;
+import org.jclouds.compute.ComputeService;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.domain.Location;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.hazelcast.util.UuidUtil.newSecureUuidString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category(QuickTest.class)
+public class FakeCloudDiscoveryTest extends HazelcastTestSupport {
+
+    private static final Map<String, String> MEMBER_TAGS = Collections.singletonMap("cluster", "dev");
+    private static final Map<String, String> OTHER_TAGS = Collections.singletonMap("cluster", "prod");
+
+    private FakeCloud cloud;
+    private Location zoneA;
+    private Location zoneB;
+
+    @Before
+    public void setUp() {
+        cloud = FakeCloud.register("http://fake-cloud/" + newSecureUuidString());
+        zoneA = cloud.zone("region-1", "zone-1a");
+        zoneB = cloud.zone("region-1", "zone-1b");
+    }
+
+    @After
+    public void tearDown() {
+        FakeCloud.unregister(cloud.getEndpoint());
+    }
+
+    @Test
+    public void whenGroupAndTagsConfigured_thenOnlyMatchingNodesListed() {
+        cloud.addNodes(2000, "hazelcast", MEMBER_TAGS, zoneA)
+                .addNodes(1000, "hazelcast", OTHER_TAGS, zoneA)
+                .addNodes(2000, "web", MEMBER_TAGS, zoneB);
+        Map<String, Comparable> properties = properties();
+        properties.put("group", "hazelcast");
+        properties.put("tag-keys", "cluster");
+        properties.put("tag-values", "dev");
+
+        assertEquals(2000, size(newBuilder(properties).getFilteredNodes()));
+    }
+
+    @Test
+    public void whenZonesConfigured_thenOnlyNodesInsideZonesListed() {
+        cloud.addNodes(300, "hazelcast", MEMBER_TAGS, zoneA)
+                .addNodes(700, "hazelcast", MEMBER_TAGS, zoneB);
+        Map<String, Comparable> properties = properties();
+        properties.put("zones", "zone-1b");
+
+        assertEquals(700, size(newBuilder(properties).getFilteredNodes()));
+    }
+
+    @Test
+    public void whenPaged_thenOneRequestPerPage() {
+        cloud.addNodes(5000, "hazelcast", MEMBER_TAGS, zoneA).setPageSize(500);
+
+        assertEquals(5000, size(newBuilder(properties()).getFilteredNodes()));
+        assertEquals(10, cloud.getRequestCount());
+    }
+
+    @Test
+    public void whenDiscovering_thenOnlyRunningNodesReturned() {
+        cloud.addNodes(100, "hazelcast", MEMBER_TAGS, zoneA)
+                .addNodes(50, "hazelcast", MEMBER_TAGS, zoneA, NodeMetadata.Status.SUSPENDED);
+        Map<String, Comparable> properties = properties();
+        properties.put("use-instance-metadata", false);
+        JCloudsDiscoveryStrategy strategy = new JCloudsDiscoveryStrategy(properties);
+        strategy.start();
+        try {
+            Iterable<DiscoveryNode> nodes = strategy.discoverNodes();
+
+            assertEquals(100, size(nodes));
+        } finally {
+            strategy.destroy();
+        }
+    }
+
+    @Test
+    public void whenSameAccount_thenContextSharedUntilLastDestroyed() {
+        ComputeServiceBuilder first = new ComputeServiceBuilder(properties());
+        ComputeServiceBuilder second = new ComputeServiceBuilder(properties());
+        ComputeService computeService = first.build();
+        try {
+            assertSame(computeService, second.build());
+
+            first.destroy();
+            assertEquals(0, size(second.getFilteredNodes()));
+        } finally {
+            second.destroy();
+        }
+    }
+
+    @Test
+    public void whenOkHttpDriverConfigured_thenPooledClientUsed() {
+        Map<String, Comparable> properties = properties();
+        properties.put("http-driver", "okhttp");
+        properties.put("http-max-connections-per-host", 8);
+        properties.put("http-gzip", false);
+        ComputeServiceBuilder builder = new ComputeServiceBuilder(properties);
+        ComputeService computeService = builder.build();
+        try {
+            OkHttpClient client = computeService.getContext().utils().injector().getInstance(OkHttpClient.class);
+
+            assertNotSame(ConnectionPool.getDefault(), client.getConnectionPool());
+            assertEquals(1, client.interceptors().size());
+        } finally {
+            builder.destroy();
+        }
+    }
+
+    private Map<String, Comparable> properties() {
+        Map<String, Comparable> properties = new HashMap<String, Comparable>();
+        properties.put("provider", FakeCloud.PROVIDER);
+        properties.put("endpoint", cloud.getEndpoint());
+        properties.put("identity", "identity");
+        properties.put("credential", "credential");
+        return properties;
+    }
+
+    private static ComputeServiceBuilder newBuilder(Map<String, Comparable> properties) {
+        ComputeServiceBuilder builder = new ComputeServiceBuilder(properties);
+        builder.build();
+        return builder;
+    }
+
+    private static int size(Iterable<?> iterable) {
+        int size = 0;
+        for (Object ignored : iterable) {
+            size++;
+        }
+        return size;
+    }
+}
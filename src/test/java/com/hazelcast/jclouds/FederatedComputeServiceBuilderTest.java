@@ -0,0 +1,268 @@
+package com.hazelcast.jclouds;
+
+import com.hazelcast.config.InvalidConfigurationException;
+import com.hazelcast.core.HazelcastException;
+import com.hazelcast.test.AssertTask;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.QuickTest;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.NodeMetadataBuilder;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category(QuickTest.class)
+public class FederatedComputeServiceBuilderTest extends HazelcastTestSupport {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private FederatedComputeServiceBuilder builder;
+
+    @After
+    public void cleanup() {
+        release.countDown();
+        if (builder != null) {
+            builder.destroy();
+        }
+    }
+
+    @Test
+    public void testIsFederated() {
+        Map<String, Comparable> properties = new HashMap<String, Comparable>();
+        properties.put("provider", "aws-ec2");
+        assertFalse(FederatedComputeServiceBuilder.isFederated(properties));
+
+        properties.put("source-2", "provider=openstack-nova");
+        assertTrue(FederatedComputeServiceBuilder.isFederated(properties));
+    }
+
+    @Test
+    public void testSourcePropertiesOverrideTopLevelProperties() {
+        Map<String, Comparable> properties = new HashMap<String, Comparable>();
+        properties.put("provider", "aws-ec2");
+        properties.put("group", "cluster");
+        properties.put("hz-port", 5702);
+        properties.put("source-1", "identity=a");
+        properties.put("source-timeout-seconds", 5);
+
+        Map<String, Comparable> source = FederatedComputeServiceBuilder.sourceProperties(properties, "source-2",
+                " provider = openstack-nova ; identity=id;credential=a=b;fan-out-threads=4; ");
+
+        assertEquals("openstack-nova", source.get("provider"));
+        assertEquals("id", source.get("identity"));
+        assertEquals("a=b", source.get("credential"));
+        assertEquals(4, source.get("fan-out-threads"));
+        assertEquals("cluster", source.get("group"));
+        assertEquals(5702, source.get("hz-port"));
+        assertNull(source.get("source-1"));
+        assertNull(source.get("source-timeout-seconds"));
+    }
+
+    @Test
+    public void testSourceBuildersAreCreatedInOrder() {
+        Map<String, Comparable> properties = new HashMap<String, Comparable>();
+        properties.put("source-3", "provider=openstack-nova");
+        properties.put("source-1", "provider=aws-ec2;regions=us-east-1");
+
+        Map<String, ComputeServiceBuilder> builders = FederatedComputeServiceBuilder.newSourceBuilders(properties);
+
+        assertEquals(Arrays.asList("source-1", "source-3"), new ArrayList<String>(builders.keySet()));
+        assertEquals("us-east-1", builders.get("source-1").getProperties().get("regions"));
+    }
+
+    @Test(expected = InvalidConfigurationException.class)
+    public void testUnsupportedSourcePropertyFails() {
+        FederatedComputeServiceBuilder.sourceProperties(new HashMap<String, Comparable>(), "source-1", "hz-port=5702");
+    }
+
+    @Test(expected = InvalidConfigurationException.class)
+    public void testMalformedSourceFails() {
+        FederatedComputeServiceBuilder.sourceProperties(new HashMap<String, Comparable>(), "source-1", "aws-ec2");
+    }
+
+    @Test(expected = InvalidConfigurationException.class)
+    public void testInvalidSourceValueFails() {
+        FederatedComputeServiceBuilder.sourceProperties(new HashMap<String, Comparable>(), "source-1",
+                "fan-out-timeout-seconds=-1");
+    }
+
+    @Test
+    public void testNodesOfAllSourcesAreMergedAndDeduplicated() {
+        ComputeServiceBuilder first = sourceReturning(newNode("a-1", "10.0.0.1"), newNode("a-2", "10.0.0.2"));
+        ComputeServiceBuilder second = sourceReturning(newNode("b-1", "10.0.0.2"), newNode("b-2", "10.1.0.1"));
+        builder = newBuilder(10000, first, second);
+
+        List<String> ids = ids(builder.getFilteredNodes());
+
+        assertEquals(Arrays.asList("a-1", "a-2", "b-2"), ids);
+    }
+
+    @Test
+    public void testNodesWithSamePrivateAddressButDifferentPublicAddressAreKept() {
+        NodeMetadata first = NodeMetadataBuilder.fromNodeMetadata(newNode("a-1", "172.31.0.10"))
+                .publicAddresses(Collections.singleton("54.0.0.1")).build();
+        NodeMetadata second = NodeMetadataBuilder.fromNodeMetadata(newNode("b-1", "172.31.0.10"))
+                .publicAddresses(Collections.singleton("35.0.0.1")).build();
+        builder = newBuilder(10000, sourceReturning(first), sourceReturning(second));
+
+        assertEquals(Arrays.asList("a-1", "b-1"), ids(builder.getFilteredNodes()));
+    }
+
+    @Test
+    public void testStoppedNodeDoesNotHideRunningNodeWithSameAddress() {
+        NodeMetadata terminated = NodeMetadataBuilder.fromNodeMetadata(newNode("a-1", "10.0.0.1"))
+                .status(NodeMetadata.Status.TERMINATED).build();
+        builder = newBuilder(10000, sourceReturning(terminated), sourceReturning(newNode("b-1", "10.0.0.1")));
+
+        assertEquals(Collections.singletonList("b-1"), ids(builder.getFilteredNodes()));
+    }
+
+    @Test
+    public void testFailingSourceIsSkipped() {
+        ComputeServiceBuilder failing = mock(ComputeServiceBuilder.class);
+        doThrow(new IllegalStateException("expected")).when(failing).getFilteredNodes();
+        builder = newBuilder(10000, failing, sourceReturning(newNode("b-1", "10.1.0.1")));
+
+        assertEquals(Collections.singletonList("b-1"), ids(builder.getFilteredNodes()));
+    }
+
+    @Test
+    public void testFailingSourceContributesLastListedNodes() {
+        ComputeServiceBuilder flaky = sourceReturning(newNode("a-1", "10.0.0.1"));
+        builder = newBuilder(10000, flaky, sourceReturning(newNode("b-1", "10.1.0.1")));
+        builder.getFilteredNodes();
+        doThrow(new IllegalStateException("expected")).when(flaky).getFilteredNodes();
+
+        assertEquals(Arrays.asList("a-1", "b-1"), ids(builder.getFilteredNodes()));
+    }
+
+    @Test
+    public void testSlowSourceDoesNotBlockFastSources() {
+        ComputeServiceBuilder slow = mock(ComputeServiceBuilder.class);
+        doAnswer(new Answer<Set<NodeMetadata>>() {
+            @Override
+            public Set<NodeMetadata> answer(InvocationOnMock invocation) throws Throwable {
+                release.await();
+                return Collections.singleton(newNode("a-1", "10.0.0.1"));
+            }
+        }).when(slow).getFilteredNodes();
+        builder = newBuilder(200, slow, sourceReturning(newNode("b-1", "10.1.0.1")));
+
+        long start = System.nanoTime();
+        List<String> ids = ids(builder.getFilteredNodes());
+
+        assertEquals(Collections.singletonList("b-1"), ids);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5000);
+
+        // the late answer is used by the next discovery, which joins the running call instead of starting another
+        release.countDown();
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() {
+                assertEquals(Arrays.asList("a-1", "b-1"), ids(builder.getFilteredNodes()));
+            }
+        });
+    }
+
+    @Test(expected = HazelcastException.class)
+    public void testNoAnsweringSourceFails() {
+        ComputeServiceBuilder failing = mock(ComputeServiceBuilder.class);
+        doThrow(new IllegalStateException("expected")).when(failing).getFilteredNodes();
+        builder = newBuilder(10000, failing);
+
+        builder.getFilteredNodes();
+    }
+
+    @Test
+    public void testSourceFailingToBuildIsLeftOutUntilItBuilds() {
+        ComputeServiceBuilder broken = sourceReturning(newNode("a-1", "10.0.0.1"));
+        doThrow(new InvalidConfigurationException("expected")).doReturn(null).when(broken).build();
+        ComputeServiceBuilder healthy = sourceReturning(newNode("b-1", "10.1.0.1"));
+        builder = newBuilder(10000, broken, healthy);
+
+        builder.build();
+        verify(healthy).build();
+        assertEquals(Arrays.asList("a-1", "b-1"), ids(builder.getFilteredNodes()));
+        builder.getFilteredNodes();
+
+        InOrder inOrder = inOrder(broken);
+        inOrder.verify(broken).build();
+        inOrder.verify(broken).destroy();
+        inOrder.verify(broken).build();
+    }
+
+    @Test
+    public void testBuildAndDestroyAllSources() {
+        ComputeServiceBuilder first = mock(ComputeServiceBuilder.class);
+        ComputeServiceBuilder second = mock(ComputeServiceBuilder.class);
+        builder = newBuilder(10000, first, second);
+        DiscoveryMetrics metrics = new DiscoveryMetrics();
+
+        builder.setMetrics(metrics);
+        builder.build();
+        builder.destroy();
+
+        verify(first).setMetrics(metrics);
+        verify(first).build();
+        verify(first).destroy();
+        verify(second).build();
+        verify(second).destroy();
+    }
+
+    private static FederatedComputeServiceBuilder newBuilder(long timeoutMillis, ComputeServiceBuilder... sources) {
+        Map<String, ComputeServiceBuilder> builders = new LinkedHashMap<String, ComputeServiceBuilder>();
+        for (int i = 0; i < sources.length; i++) {
+            builders.put("source-" + (i + 1), sources[i]);
+        }
+        return new FederatedComputeServiceBuilder(new HashMap<String, Comparable>(), builders, timeoutMillis);
+    }
+
+    private static ComputeServiceBuilder sourceReturning(NodeMetadata... nodes) {
+        ComputeServiceBuilder source = mock(ComputeServiceBuilder.class);
+        doReturn(Arrays.asList(nodes)).when(source).getFilteredNodes();
+        return source;
+    }
+
+    private static List<String> ids(Iterable<? extends NodeMetadata> nodes) {
+        List<String> ids = new ArrayList<String>();
+        for (NodeMetadata node : nodes) {
+            ids.add(node.getId());
+        }
+        return ids;
+    }
+
+    private static NodeMetadata newNode(String id, String privateAddress) {
+        return new NodeMetadataBuilder()
+                .id(id)
+                .privateAddresses(Collections.singleton(privateAddress))
+                .status(NodeMetadata.Status.RUNNING)
+                .build();
+    }
+}
@@ -0,0 +1,75 @@
+package com.hazelcast.jclouds;
+
+import com.hazelcast.config.InvalidConfigurationException;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.QuickTest;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category(QuickTest.class)
+public class GceDirectNodeListerTest extends HazelcastTestSupport {
+
+    private final LocationResolver locationResolver = new LocationResolver();
+
+    @Test
+    public void testProjectOfServiceAccount() {
+        assertEquals("my-project", GceDirectNodeLister.projectOf("discovery@my-project.iam.gserviceaccount.com"));
+    }
+
+    @Test
+    public void testProjectOfDeveloperAccount() {
+        assertEquals("123456789", GceDirectNodeLister.projectOf("123456789-abcdef@developer.gserviceaccount.com"));
+    }
+
+    @Test(expected = InvalidConfigurationException.class)
+    public void testProjectOfOtherEmailRejected() {
+        GceDirectNodeLister.projectOf("someone@example.com");
+    }
+
+    @Test
+    public void testInstanceConvertedToNodeMetadata() {
+        GceDirectNodeLister lister = new GceDirectNodeLister(null);
+        GceInstancesClient.Instance instance = new GceInstancesClient.Instance();
+        instance.id = "42";
+        instance.name = "member-1";
+        instance.zone = "us-central1-a";
+        instance.status = "RUNNING";
+        instance.privateIpAddress = "10.128.0.1";
+        instance.labels.put(GceDirectNodeLister.GROUP_LABEL, "hazelcast");
+
+        NodeMetadata node = lister.toNodeMetadata(instance);
+
+        assertEquals("us-central1-a/member-1", node.getId());
+        assertEquals("42", node.getProviderId());
+        assertEquals("hazelcast", node.getGroup());
+        assertEquals(NodeMetadata.Status.RUNNING, node.getStatus());
+        assertEquals("us-central1-a", locationResolver.getZone(node.getLocation()));
+        assertEquals("us-central1", locationResolver.getRegion(node.getLocation()));
+        assertEquals(Collections.singleton("10.128.0.1"), node.getPrivateAddresses());
+        assertTrue(node.getPublicAddresses().isEmpty());
+    }
+
+    @Test
+    public void testStoppedInstanceWithoutGroupLabel() {
+        GceDirectNodeLister lister = new GceDirectNodeLister(null);
+        GceInstancesClient.Instance instance = new GceInstancesClient.Instance();
+        instance.name = "member-1";
+        instance.zone = "us-central1-a";
+        instance.status = "TERMINATED";
+
+        NodeMetadata node = lister.toNodeMetadata(instance);
+
+        assertNull(node.getGroup());
+        assertEquals(NodeMetadata.Status.SUSPENDED, node.getStatus());
+    }
+}
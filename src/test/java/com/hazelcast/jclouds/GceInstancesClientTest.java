@@ -0,0 +1,172 @@
+package com.hazelcast.jclouds;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Suppliers;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.QuickTest;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.http.HttpResponseException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category(QuickTest.class)
+public class GceInstancesClientTest extends HazelcastTestSupport {
+
+    private static final String ZONE_URL = "https://www.googleapis.com/compute/v1/projects/my-project/zones/";
+    private static final String FIRST_PAGE = "{\"items\":{"
+            + "\"zones/us-central1-a\":{\"instances\":["
+            + instance("1", "member-1", "us-central1-a", "10.128.0.1", "35.1.1.1", "hazelcast") + ","
+            + instance("2", "member-2", "us-central1-a", "10.128.0.2", null, "web") + "]},"
+            + "\"zones/us-central1-b\":{\"warning\":{\"code\":\"NO_RESULTS_ON_PAGE\",\"data\":[{\"key\":\"scope\"}]}}},"
+            + "\"nextPageToken\":\"page-2\"}";
+    private static final String SECOND_PAGE = "{\"items\":{"
+            + "\"zones/europe-west1-b\":{\"instances\":["
+            + instance("3", "member-3", "europe-west1-b", "10.132.0.3", null, "hazelcast") + "]}}}";
+
+    private final List<Map<String, String>> requests = new CopyOnWriteArrayList<Map<String, String>>();
+    private volatile int status = 200;
+    private HttpServer server;
+    private String endpoint;
+
+    @Before
+    public void setup() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/projects/my-project/aggregated/instances", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                Map<String, String> parameters = parse(exchange.getRequestURI().getRawQuery());
+                parameters.put("Authorization", exchange.getRequestHeaders().getFirst("Authorization"));
+                requests.add(parameters);
+                if (status != 200) {
+                    respond(exchange, status, "{\"error\":{\"errors\":[{\"reason\":\"rateLimitExceeded\"}]}}");
+                } else if (!"Bearer token".equals(parameters.get("Authorization"))) {
+                    respond(exchange, 401, "{\"error\":{}}");
+                } else {
+                    respond(exchange, 200, parameters.containsKey("pageToken") ? SECOND_PAGE : FIRST_PAGE);
+                }
+            }
+        });
+        server.start();
+        endpoint = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testInstancesOfAllPagesAndZonesListed() throws IOException {
+        AtomicInteger calls = new AtomicInteger();
+        List<GceInstancesClient.Instance> instances = newClient().listInstances(calls);
+
+        assertEquals(3, instances.size());
+        assertEquals(2, requests.size());
+        assertEquals(2, calls.get());
+        assertEquals("page-2", requests.get(1).get("pageToken"));
+        GceInstancesClient.Instance first = instances.get(0);
+        assertEquals("1", first.id);
+        assertEquals("member-1", first.name);
+        assertEquals("us-central1-a", first.zone);
+        assertEquals("RUNNING", first.status);
+        assertEquals("10.128.0.1", first.privateIpAddress);
+        assertEquals("35.1.1.1", first.publicIpAddress);
+        assertEquals("dev", first.labels.get("cluster"));
+        assertNull(instances.get(1).publicIpAddress);
+        assertEquals("europe-west1-b", instances.get(2).zone);
+    }
+
+    @Test
+    public void testProjectionAndFilterSent() throws IOException {
+        newClient().listInstances(new AtomicInteger());
+
+        Map<String, String> request = requests.get(0);
+        assertEquals(GceInstancesClient.FIELDS, request.get("fields"));
+        assertEquals("(status = \"RUNNING\") AND (labels.cluster = \"dev\")", request.get("filter"));
+    }
+
+    @Test
+    public void testRateLimitErrorRecognized() throws IOException {
+        status = 403;
+        try {
+            newClient().listInstances(new AtomicInteger());
+            fail("instances.aggregatedList should fail");
+        } catch (HttpResponseException e) {
+            assertEquals(403, e.getResponse().getStatusCode());
+            assertTrue(ThrottlingBackoff.isThrottling(e));
+        }
+    }
+
+    @Test
+    public void testNodesFilteredByGroupLabel() {
+        GceDirectNodeLister lister = new GceDirectNodeLister(newClient());
+        NodeFilter filter = new NodeFilter("hazelcast", Collections.<AbstractMap.SimpleImmutableEntry>emptyList(),
+                Collections.singleton("us-central1-a"), Collections.<String>emptySet(), new LocationResolver());
+
+        Set<? extends NodeMetadata> nodes = lister.listNodes(null, filter, new AtomicInteger());
+
+        assertEquals(1, nodes.size());
+        assertEquals("us-central1-a/member-1", nodes.iterator().next().getId());
+    }
+
+    private GceInstancesClient newClient() {
+        List<AbstractMap.SimpleImmutableEntry> labels = Collections.<AbstractMap.SimpleImmutableEntry>singletonList(
+                new AbstractMap.SimpleImmutableEntry<String, String>("cluster", "dev"));
+        return new GceInstancesClient(endpoint, "my-project", Suppliers.ofInstance("token"), labels, 1000, 1000);
+    }
+
+    private static String instance(String id, String name, String zone, String privateIp, String publicIp, String group) {
+        return "{\"id\":\"" + id + "\",\"name\":\"" + name + "\",\"zone\":\"" + ZONE_URL + zone + "\","
+                + "\"status\":\"RUNNING\",\"labels\":{\"cluster\":\"dev\",\"jclouds-group\":\"" + group + "\"},"
+                + "\"networkInterfaces\":[{\"networkIP\":\"" + privateIp + "\""
+                + (publicIp != null ? ",\"accessConfigs\":[{\"natIP\":\"" + publicIp + "\"}]" : "")
+                + "}]}";
+    }
+
+    private static Map<String, String> parse(String query) throws IOException {
+        Map<String, String> parameters = new HashMap<String, String>();
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            parameters.put(URLDecoder.decode(pair.substring(0, separator), "UTF-8"),
+                    URLDecoder.decode(pair.substring(separator + 1), "UTF-8"));
+        }
+        return parameters;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(Charsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        OutputStream out = exchange.getResponseBody();
+        try {
+            out.write(bytes);
+        } finally {
+            out.close();
+        }
+    }
+}
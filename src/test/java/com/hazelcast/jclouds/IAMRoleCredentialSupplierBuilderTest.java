@@ -57,6 +57,28 @@ public class IAMRoleCredentialSupplierBuilderTest extends HazelcastTestSupport {
         assertEquals("ASIAIEXAMPLEOXYDA", map.get("AccessKeyId"));
         assertEquals("hOCVge3EXAMPLExSJ+B", map.get("SecretAccessKey"));
         assertEquals("AQoDYXdzEE4EXAMPLE2UGAFshkTsyw7gojLdiEXAMPLE+1SfSRTfLR", map.get("Token"));
+        assertEquals("2015-09-07T03:19:56Z", map.get("Expiration"));
+    }
+
+    @Test
+    public void testParseIamRole_compact() throws IOException {
+        String s = "{\"Code\":\"Success\",\"AccessKeyId\":\"ASIAIEXAMPLEOXYDA\",\"SecretAccessKey\":\"hOCVge3EXAMPLExSJ+B\","
+                + "\"Token\":\"AQoDYXdzEE4EXAMPLE\",\"Expiration\":\"2015-09-07T03:19:56Z\"}";
+        Map map = new IAMRoleCredentialSupplierBuilder().parseIamRole(new BufferedReader(new StringReader(s)));
+
+        assertEquals("ASIAIEXAMPLEOXYDA", map.get("AccessKeyId"));
+        assertEquals("hOCVge3EXAMPLExSJ+B", map.get("SecretAccessKey"));
+        assertEquals("AQoDYXdzEE4EXAMPLE", map.get("Token"));
+        assertEquals("2015-09-07T03:19:56Z", map.get("Expiration"));
+    }
+
+    @Test
+    public void testParseExpiration() {
+        IAMRoleCredentialSupplierBuilder builder = new IAMRoleCredentialSupplierBuilder();
+
+        assertEquals(1441595996000L, builder.parseExpiration("2015-09-07T03:19:56Z").getTime());
+        assertNull(builder.parseExpiration("invalid"));
+        assertNull(builder.parseExpiration(null));
     }
 
     @Test
@@ -76,6 +98,23 @@ public class IAMRoleCredentialSupplierBuilderTest extends HazelcastTestSupport {
         assertEquals("ExampleToken", sessionCredentials.getSessionToken());
     }
 
+    @Test
+    public void testBuildReadsCredentialsThroughMetadataClient() throws IOException {
+        MetadataClient metadataClient = mock(MetadataClient.class);
+        when(metadataClient.get("/latest/meta-data/iam/security-credentials/example")).thenReturn("{\n"
+                + "  \"AccessKeyId\" : \"ExampleAccessKeyId\",\n"
+                + "  \"SecretAccessKey\" : \"ExampleSecretAccessKey\",\n"
+                + "  \"Token\" : \"ExampleToken\",\n"
+                + "  \"Expiration\" : \"2015-09-07T03:19:56Z\"\n}");
+
+        SessionCredentials sessionCredentials = new IAMRoleCredentialSupplierBuilder(metadataClient)
+                .withRoleName("example").build();
+
+        assertEquals("ExampleAccessKeyId", sessionCredentials.getAccessKeyId());
+        assertEquals("ExampleToken", sessionCredentials.getSessionToken());
+        assertEquals(1441595996000L, sessionCredentials.getExpiration().get().getTime());
+    }
+
     @Test(expected = InvalidConfigurationException.class)
     public void parseIamRole_withInvalidAwsConfiguration() {
         new IAMRoleCredentialSupplierBuilder().getKeysFromIamRole();
@@ -0,0 +1,114 @@
+package com.hazelcast.jclouds;
+
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.QuickTest;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.hazelcast.spi.partitiongroup.PartitionGroupMetaData.PARTITION_GROUP_HOST;
+import static com.hazelcast.spi.partitiongroup.PartitionGroupMetaData.PARTITION_GROUP_ZONE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category(QuickTest.class)
+public class InstanceMetadataSourceTest extends HazelcastTestSupport {
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private HttpServer server;
+    private String endpoint;
+
+    @Before
+    public void setup() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        respond("/latest/meta-data/placement/availability-zone", "us-east-1a", null);
+        respond("/latest/meta-data/local-hostname", "ip-10-0-0-1.ec2.internal", null);
+        respond("/computeMetadata/v1/instance/zone", "projects/1234/zones/europe-west1-b", "Google");
+        respond("/computeMetadata/v1/instance/hostname", "member1.c.project.internal", "Google");
+        server.start();
+        endpoint = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testEc2Metadata() {
+        InstanceMetadataSource source = InstanceMetadataSource.forEc2(endpoint);
+
+        Map<String, Object> metadata = source.getMetadata();
+
+        assertEquals("us-east-1a", metadata.get(PARTITION_GROUP_ZONE));
+        assertEquals("ip-10-0-0-1.ec2.internal", metadata.get(PARTITION_GROUP_HOST));
+    }
+
+    @Test
+    public void testGceMetadata() {
+        InstanceMetadataSource source = InstanceMetadataSource.forGce(endpoint);
+
+        Map<String, Object> metadata = source.getMetadata();
+
+        assertEquals("europe-west1-b", metadata.get(PARTITION_GROUP_ZONE));
+        assertEquals("member1.c.project.internal", metadata.get(PARTITION_GROUP_HOST));
+    }
+
+    @Test
+    public void testMetadataIsReadOnce() {
+        InstanceMetadataSource source = InstanceMetadataSource.forEc2(endpoint);
+
+        source.getMetadata();
+        source.getMetadata();
+
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void testUnavailableMetadataServiceGivesEmptyMetadata() {
+        InstanceMetadataSource source = InstanceMetadataSource.forEc2(endpoint + "/missing");
+
+        assertTrue(source.getMetadata().isEmpty());
+    }
+
+    @Test
+    public void testForProvider() {
+        assertNull(InstanceMetadataSource.forProvider("stub"));
+        assertTrue(InstanceMetadataSource.forProvider("aws-ec2") != null);
+        assertTrue(InstanceMetadataSource.forProvider("google-compute-engine") != null);
+    }
+
+    private void respond(String path, final String body, final String requiredFlavor) {
+        server.createContext(path, new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                requests.incrementAndGet();
+                String flavor = exchange.getRequestHeaders().getFirst("Metadata-Flavor");
+                if (requiredFlavor != null && !requiredFlavor.equals(flavor)) {
+                    exchange.sendResponseHeaders(403, -1);
+                    exchange.close();
+                    return;
+                }
+                byte[] bytes = body.getBytes("UTF-8");
+                exchange.sendResponseHeaders(200, bytes.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(bytes);
+                out.close();
+            }
+        });
+    }
+}
@@ -51,7 +51,7 @@ public class JCloudsDiscoveryFactoryTest extends HazelcastTestSupport {
 
         DiscoveryStrategyConfig providerConfig = discoveryConfig.getDiscoveryStrategyConfigs().iterator().next();
 
-        assertEquals(12, providerConfig.getProperties().size());
+        assertEquals(34, providerConfig.getProperties().size());
         assertEquals("aws-ec2", providerConfig.getProperties().get("provider"));
         assertEquals("test", providerConfig.getProperties().get("identity"));
         assertEquals("test", providerConfig.getProperties().get("credential"));
@@ -65,6 +65,30 @@ public class JCloudsDiscoveryFactoryTest extends HazelcastTestSupport {
         assertEquals("myfile.json", providerConfig.getProperties().get("credentialPath"));
         assertEquals("myRole", providerConfig.getProperties().get("role-name"));
         assertEquals("http://foo/bar", providerConfig.getProperties().get("endpoint"));
+        assertEquals("30", providerConfig.getProperties().get("cache-ttl-seconds"));
+        assertEquals("60", providerConfig.getProperties().get("refresh-interval-seconds"));
+        assertEquals("4", providerConfig.getProperties().get("fan-out-threads"));
+        assertEquals("10", providerConfig.getProperties().get("fan-out-timeout-seconds"));
+        assertEquals("false", providerConfig.getProperties().get("filter-push-down"));
+        assertEquals("false", providerConfig.getProperties().get("use-instance-metadata"));
+        assertEquals("true", providerConfig.getProperties().get("async-logging"));
+        assertEquals("true", providerConfig.getProperties().get("metrics-jmx-enabled"));
+        assertEquals("/var/lib/hazelcast/jclouds-nodes.bin", providerConfig.getProperties().get("snapshot-file"));
+        assertEquals("5000", providerConfig.getProperties().get("http-connect-timeout-millis"));
+        assertEquals("20000", providerConfig.getProperties().get("http-read-timeout-millis"));
+        assertEquals("8", providerConfig.getProperties().get("http-max-connections-per-host"));
+        assertEquals("120", providerConfig.getProperties().get("http-keep-alive-seconds"));
+        assertEquals("false", providerConfig.getProperties().get("http-gzip"));
+        assertEquals("okhttp", providerConfig.getProperties().get("http-driver"));
+        assertEquals("30", providerConfig.getProperties().get("start-timeout-seconds"));
+        assertEquals("direct", providerConfig.getProperties().get("engine"));
+        assertEquals("provider=aws-ec2;identity=test2;credential=test2;regions=region3",
+                providerConfig.getProperties().get("source-1"));
+        assertEquals("provider=openstack-nova;endpoint=http://keystone:5000/v2.0",
+                providerConfig.getProperties().get("source-2"));
+        assertEquals("provider=aws-ec2;role-name=otherRole", providerConfig.getProperties().get("source-3"));
+        assertEquals("provider=google-compute-engine;credentialPath=gce.json", providerConfig.getProperties().get("source-4"));
+        assertEquals("5", providerConfig.getProperties().get("source-timeout-seconds"));
     }
 
     @Test
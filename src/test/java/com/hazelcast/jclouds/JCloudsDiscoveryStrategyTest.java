@@ -1,34 +1,61 @@
 package com.hazelcast.jclouds;
 
+import com.hazelcast.config.InvalidConfigurationException;
 import com.hazelcast.core.HazelcastException;
 import com.hazelcast.nio.Address;
 import com.hazelcast.spi.discovery.DiscoveryNode;
+import com.hazelcast.spi.discovery.SimpleDiscoveryNode;
+import com.hazelcast.test.AssertTask;
 import com.hazelcast.test.HazelcastParallelClassRunner;
 import com.hazelcast.test.HazelcastTestSupport;
 import com.hazelcast.test.annotation.QuickTest;
 import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.NodeMetadataBuilder;
 import org.jclouds.compute.domain.internal.NodeMetadataImpl;
 import org.jclouds.domain.LocationScope;
 import org.jclouds.domain.internal.LocationImpl;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.HttpResponseException;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
+import java.io.File;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
 
 import static com.hazelcast.spi.partitiongroup.PartitionGroupMetaData.PARTITION_GROUP_HOST;
 import static com.hazelcast.spi.partitiongroup.PartitionGroupMetaData.PARTITION_GROUP_ZONE;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 
 @RunWith(HazelcastParallelClassRunner.class)
 @Category(QuickTest.class)
@@ -38,6 +65,9 @@ public class JCloudsDiscoveryStrategyTest extends HazelcastTestSupport {
     private static final int NUMBER_OF_NODES = 10;
     private static final int NUMBER_OF_RUNNING_NODES = 7;
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     private Set<NodeMetadata> nodes = new HashSet<NodeMetadata>();
     private Set<Address> addressesOfRunningInstances = new HashSet<Address>();
 
@@ -125,15 +155,210 @@ public class JCloudsDiscoveryStrategyTest extends HazelcastTestSupport {
         assertEquals(localMetadata.get(PARTITION_GROUP_ZONE), "eu-west-1");
     }
 
+    @Test
+    public void testShouldListNodesOnceWhenLocalNodeNotFound() {
+        ComputeServiceBuilder mockComputeServiceBuilder = mock(ComputeServiceBuilder.class);
+        doReturn(nodes).when(mockComputeServiceBuilder).getFilteredNodes();
+        JCloudsDiscoveryStrategy jCloudsDiscoveryStrategy = new JCloudsDiscoveryStrategy(mockComputeServiceBuilder);
+
+        jCloudsDiscoveryStrategy.discoverLocalMetadata();
+        jCloudsDiscoveryStrategy.discoverLocalMetadata();
+
+        verify(mockComputeServiceBuilder, times(1)).getFilteredNodes();
+    }
+
+    @Test
+    public void testShouldLookUpLocalNodeAgainAfterFailedDiscovery() {
+        ComputeServiceBuilder mockComputeServiceBuilder = mock(ComputeServiceBuilder.class);
+        JCloudsDiscoveryStrategy jCloudsDiscoveryStrategy = new JCloudsDiscoveryStrategy(mockComputeServiceBuilder);
+        HashSet<String> privateAddresses = new HashSet<String>();
+        privateAddresses.add(jCloudsDiscoveryStrategy.getLocalHostAddress());
+        NodeMetadata localNode = new NodeMetadataBuilder().id("local").status(NodeMetadata.Status.RUNNING)
+                .privateAddresses(privateAddresses).publicAddresses(privateAddresses).hostname("dummyHostName").build();
+        doThrow(new IllegalStateException("expected")).doReturn(Collections.singleton(localNode))
+                .when(mockComputeServiceBuilder).getFilteredNodes();
+
+        try {
+            jCloudsDiscoveryStrategy.discoverLocalMetadata();
+            fail("the first discovery should fail");
+        } catch (HazelcastException expected) {
+            // the local node is looked up again by the next call
+        }
+        Map<String, Object> localMetadata = jCloudsDiscoveryStrategy.discoverLocalMetadata();
+
+        assertEquals("dummyHostName", localMetadata.get(PARTITION_GROUP_HOST));
+    }
+
+    @Test
+    public void testShouldDiscoverLocalNodeWithoutHostname() {
+        ComputeServiceBuilder mockComputeServiceBuilder = mock(ComputeServiceBuilder.class);
+        JCloudsDiscoveryStrategy jCloudsDiscoveryStrategy = new JCloudsDiscoveryStrategy(mockComputeServiceBuilder);
+        HashSet<String> privateAddresses = new HashSet<String>();
+        privateAddresses.add(jCloudsDiscoveryStrategy.getLocalHostAddress());
+        LocationImpl location = new LocationImpl(LocationScope.ZONE, "eu-west-1a", "dummy", null, new ArrayList<String>(),
+                new HashMap<String, Object>());
+        NodeMetadata localNode = new NodeMetadataBuilder().id("local").status(NodeMetadata.Status.RUNNING)
+                .location(location).privateAddresses(privateAddresses).publicAddresses(privateAddresses).build();
+        doReturn(Collections.singleton(localNode)).when(mockComputeServiceBuilder).getFilteredNodes();
+
+        Map<String, Object> localMetadata = jCloudsDiscoveryStrategy.discoverLocalMetadata();
+
+        assertEquals("eu-west-1a", localMetadata.get(PARTITION_GROUP_ZONE));
+        assertFalse(localMetadata.containsKey(PARTITION_GROUP_HOST));
+    }
+
+    @Test
+    public void testShouldPreferInstanceMetadataSource() {
+        ComputeServiceBuilder mockComputeServiceBuilder = mock(ComputeServiceBuilder.class);
+        InstanceMetadataSource metadataSource = mock(InstanceMetadataSource.class);
+        Map<String, Object> instanceMetadata = new HashMap<String, Object>();
+        instanceMetadata.put(PARTITION_GROUP_ZONE, "us-east-1a");
+        instanceMetadata.put(PARTITION_GROUP_HOST, "ip-10-0-0-1");
+        doReturn(instanceMetadata).when(metadataSource).getMetadata();
+        JCloudsDiscoveryStrategy jCloudsDiscoveryStrategy = new JCloudsDiscoveryStrategy(mockComputeServiceBuilder);
+        jCloudsDiscoveryStrategy.setInstanceMetadataSource(metadataSource);
+
+        Map<String, Object> localMetadata = jCloudsDiscoveryStrategy.discoverLocalMetadata();
+
+        assertEquals("us-east-1a", localMetadata.get(PARTITION_GROUP_ZONE));
+        assertEquals("ip-10-0-0-1", localMetadata.get(PARTITION_GROUP_HOST));
+        verify(mockComputeServiceBuilder, never()).getFilteredNodes();
+    }
+
+    @Test
+    public void testShouldRecordDiscoveryMetrics() {
+        ComputeServiceBuilder mockComputeServiceBuilder = mock(ComputeServiceBuilder.class);
+        doReturn(nodes).when(mockComputeServiceBuilder).getFilteredNodes();
+        JCloudsDiscoveryStrategy jCloudsDiscoveryStrategy = new JCloudsDiscoveryStrategy(mockComputeServiceBuilder);
+
+        jCloudsDiscoveryStrategy.discoverNodes();
+        DiscoveryMetricsSnapshot metrics = jCloudsDiscoveryStrategy.getMetrics();
+
+        assertEquals(1, metrics.getDiscoveries());
+        assertEquals(NUMBER_OF_RUNNING_NODES, metrics.getDiscoveredNodes());
+        assertEquals(1, metrics.getMapLatency().getCount());
+        verify(mockComputeServiceBuilder).setMetrics(any(DiscoveryMetrics.class));
+    }
+
+    @Test
+    public void testShouldServeCachedNodesWhenCacheTtlConfigured() {
+        ComputeServiceBuilder mockComputeServiceBuilder = mock(ComputeServiceBuilder.class);
+        doReturn(nodes).when(mockComputeServiceBuilder).getFilteredNodes();
+        Map<String, Comparable> properties = new HashMap<String, Comparable>();
+        properties.put("cache-ttl-seconds", 60);
+
+        JCloudsDiscoveryStrategy jCloudsDiscoveryStrategy = new JCloudsDiscoveryStrategy(mockComputeServiceBuilder, properties);
+        Iterable<DiscoveryNode> first = jCloudsDiscoveryStrategy.discoverNodes();
+        Iterable<DiscoveryNode> second = jCloudsDiscoveryStrategy.discoverNodes();
+        jCloudsDiscoveryStrategy.destroy();
+
+        assertSame(first, second);
+        verify(mockComputeServiceBuilder, times(1)).getFilteredNodes();
+    }
+
+    @Test
+    public void testShouldNotifyNodeListenerAboutAddedNodes() {
+        ComputeServiceBuilder mockComputeServiceBuilder = mock(ComputeServiceBuilder.class);
+        doReturn(nodes).when(mockComputeServiceBuilder).getFilteredNodes();
+        DiscoveryNodeListener listener = mock(DiscoveryNodeListener.class);
+
+        JCloudsDiscoveryStrategy jCloudsDiscoveryStrategy = new JCloudsDiscoveryStrategy(mockComputeServiceBuilder);
+        jCloudsDiscoveryStrategy.addNodeListener(listener);
+        jCloudsDiscoveryStrategy.discoverNodes();
+        jCloudsDiscoveryStrategy.discoverNodes();
+
+        verify(listener, times(NUMBER_OF_RUNNING_NODES)).nodeAdded(anyString(), any(DiscoveryNode.class));
+        verify(listener).nodeAdded(eq("dummyId0"), any(DiscoveryNode.class));
+        verifyNoMoreInteractions(listener);
+    }
+
     @Test
     public void testBuildCalled() {
         ComputeServiceBuilder mockComputeServiceBuilder = mock(ComputeServiceBuilder.class);
         JCloudsDiscoveryStrategy jCloudsDiscoveryStrategy = new JCloudsDiscoveryStrategy(mockComputeServiceBuilder);
         jCloudsDiscoveryStrategy.start();
+        // waits for the context built in the background
+        jCloudsDiscoveryStrategy.destroy();
 
         verify(mockComputeServiceBuilder).build();
     }
 
+    @Test
+    public void whenStartTimeoutDisabled_thenBuildCalledOnStart() {
+        ComputeServiceBuilder mockComputeServiceBuilder = mock(ComputeServiceBuilder.class);
+        Map<String, Comparable> properties = new HashMap<String, Comparable>();
+        properties.put("start-timeout-seconds", 0);
+        JCloudsDiscoveryStrategy jCloudsDiscoveryStrategy
+                = new JCloudsDiscoveryStrategy(mockComputeServiceBuilder, properties);
+        jCloudsDiscoveryStrategy.start();
+
+        verify(mockComputeServiceBuilder).build();
+    }
+
+    @Test
+    public void whenContextBuiltInBackground_thenFirstDiscoveryWaitsForIt() throws Exception {
+        final CountDownLatch built = new CountDownLatch(1);
+        ComputeServiceBuilder mockComputeServiceBuilder = mock(ComputeServiceBuilder.class);
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                built.await();
+                return null;
+            }
+        }).when(mockComputeServiceBuilder).build();
+        doReturn(nodes).when(mockComputeServiceBuilder).getFilteredNodes();
+        final JCloudsDiscoveryStrategy jCloudsDiscoveryStrategy = new JCloudsDiscoveryStrategy(mockComputeServiceBuilder);
+        jCloudsDiscoveryStrategy.start();
+
+        Future<Iterable<DiscoveryNode>> discovered = spawn(new Callable<Iterable<DiscoveryNode>>() {
+            @Override
+            public Iterable<DiscoveryNode> call() {
+                return jCloudsDiscoveryStrategy.discoverNodes();
+            }
+        });
+        sleepMillis(100);
+        verify(mockComputeServiceBuilder, never()).getFilteredNodes();
+
+        built.countDown();
+        assertEquals(addressesOfRunningInstances, privateAddresses(discovered.get()));
+        jCloudsDiscoveryStrategy.destroy();
+    }
+
+    @Test(expected = InvalidConfigurationException.class)
+    public void whenContextBuildFails_thenFirstDiscoveryThrows() {
+        ComputeServiceBuilder mockComputeServiceBuilder = mock(ComputeServiceBuilder.class);
+        doThrow(new InvalidConfigurationException("Unrecognized cloud-provider [foo]"))
+                .when(mockComputeServiceBuilder).build();
+        JCloudsDiscoveryStrategy jCloudsDiscoveryStrategy = new JCloudsDiscoveryStrategy(mockComputeServiceBuilder);
+        jCloudsDiscoveryStrategy.start();
+
+        jCloudsDiscoveryStrategy.discoverNodes();
+    }
+
+    @Test(expected = HazelcastException.class)
+    public void whenContextNotBuiltInTime_thenDiscoveryFails() {
+        final CountDownLatch built = new CountDownLatch(1);
+        ComputeServiceBuilder mockComputeServiceBuilder = mock(ComputeServiceBuilder.class);
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                built.await();
+                return null;
+            }
+        }).when(mockComputeServiceBuilder).build();
+        Map<String, Comparable> properties = new HashMap<String, Comparable>();
+        properties.put("start-timeout-seconds", 1);
+        JCloudsDiscoveryStrategy jCloudsDiscoveryStrategy
+                = new JCloudsDiscoveryStrategy(mockComputeServiceBuilder, properties);
+        jCloudsDiscoveryStrategy.start();
+        try {
+            jCloudsDiscoveryStrategy.discoverNodes();
+        } finally {
+            built.countDown();
+            jCloudsDiscoveryStrategy.destroy();
+        }
+    }
+
     @Test
     public void testDestroyCalled() {
         ComputeServiceBuilder mockComputeServiceBuilder = mock(ComputeServiceBuilder.class);
@@ -143,8 +368,8 @@ public class JCloudsDiscoveryStrategyTest extends HazelcastTestSupport {
         verify(mockComputeServiceBuilder).destroy();
     }
 
-    @Test(expected = HazelcastException.class)
-    public void whenInvalidAddress_thenHazelcastException() {
+    @Test
+    public void whenInvalidAddress_thenNodeSkipped() {
         HashSet<String> privateAddresses = new HashSet<String>();
         // invalid address
         privateAddresses.add("257.0.0.1");
@@ -160,7 +385,113 @@ public class JCloudsDiscoveryStrategyTest extends HazelcastTestSupport {
         ComputeServiceBuilder mockComputeServiceBuilder = mock(ComputeServiceBuilder.class);
         doReturn(nodes).when(mockComputeServiceBuilder).getFilteredNodes();
 
+        JCloudsDiscoveryStrategy jCloudsDiscoveryStrategy = new JCloudsDiscoveryStrategy(mockComputeServiceBuilder);
+        Iterable<DiscoveryNode> discoveredNodes = jCloudsDiscoveryStrategy.discoverNodes();
+
+        assertFalse(discoveredNodes.iterator().hasNext());
+    }
+
+    @Test
+    public void whenDiscoveryFails_thenPersistedNodesReturned() {
+        ComputeServiceBuilder mockComputeServiceBuilder = mock(ComputeServiceBuilder.class);
+        doReturn(nodes).when(mockComputeServiceBuilder).getFilteredNodes();
+        Map<String, Comparable> properties = new HashMap<String, Comparable>();
+        properties.put("snapshot-file", new File(folder.getRoot(), "nodes.bin").getPath());
+        JCloudsDiscoveryStrategy jCloudsDiscoveryStrategy = new JCloudsDiscoveryStrategy(mockComputeServiceBuilder, properties);
+        jCloudsDiscoveryStrategy.discoverNodes();
+
+        doThrow(new IllegalStateException("expected")).when(mockComputeServiceBuilder).getFilteredNodes();
+        Iterable<DiscoveryNode> discoveredNodes = jCloudsDiscoveryStrategy.discoverNodes();
+
+        assertEquals(addressesOfRunningInstances, privateAddresses(discoveredNodes));
+    }
+
+    @Test
+    public void whenSnapshotPersisted_thenReturnedUntilFirstDiscoveryCompletes() throws Exception {
+        File file = new File(folder.getRoot(), "nodes.bin");
+        List<DiscoveryNode> persisted = new ArrayList<DiscoveryNode>();
+        persisted.add(new SimpleDiscoveryNode(new Address("10.0.0.1", STARTING_PORT)));
+        new NodesSnapshotFile(file).write(persisted);
+        final CountDownLatch listed = new CountDownLatch(1);
+        ComputeServiceBuilder mockComputeServiceBuilder = mock(ComputeServiceBuilder.class);
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                listed.await();
+                return nodes;
+            }
+        }).when(mockComputeServiceBuilder).getFilteredNodes();
+        Map<String, Comparable> properties = new HashMap<String, Comparable>();
+        properties.put("snapshot-file", file.getPath());
+        final JCloudsDiscoveryStrategy jCloudsDiscoveryStrategy
+                = new JCloudsDiscoveryStrategy(mockComputeServiceBuilder, properties);
+        jCloudsDiscoveryStrategy.start();
+
+        assertEquals(privateAddresses(persisted), privateAddresses(jCloudsDiscoveryStrategy.discoverNodes()));
+
+        listed.countDown();
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() {
+                assertEquals(addressesOfRunningInstances, privateAddresses(jCloudsDiscoveryStrategy.discoverNodes()));
+            }
+        });
+        jCloudsDiscoveryStrategy.destroy();
+    }
+
+    @Test
+    public void whenContextBuildFails_thenPersistedNodesNotReturned() throws Exception {
+        File file = new File(folder.getRoot(), "nodes.bin");
+        List<DiscoveryNode> persisted = new ArrayList<DiscoveryNode>();
+        persisted.add(new SimpleDiscoveryNode(new Address("10.0.0.1", STARTING_PORT)));
+        new NodesSnapshotFile(file).write(persisted);
+        ComputeServiceBuilder mockComputeServiceBuilder = mock(ComputeServiceBuilder.class);
+        doThrow(new InvalidConfigurationException("Unrecognized cloud-provider [foo]"))
+                .when(mockComputeServiceBuilder).build();
+        Map<String, Comparable> properties = new HashMap<String, Comparable>();
+        properties.put("snapshot-file", file.getPath());
+        final JCloudsDiscoveryStrategy jCloudsDiscoveryStrategy
+                = new JCloudsDiscoveryStrategy(mockComputeServiceBuilder, properties);
+        jCloudsDiscoveryStrategy.start();
+
+        // the persisted nodes are served only until the first discovery reports the configuration error
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() {
+                try {
+                    jCloudsDiscoveryStrategy.discoverNodes();
+                    fail("the configuration error should be thrown");
+                } catch (InvalidConfigurationException expected) {
+                    assertEquals("Unrecognized cloud-provider [foo]", expected.getMessage());
+                }
+            }
+        });
+        jCloudsDiscoveryStrategy.destroy();
+    }
+
+    @Test
+    public void whenThrottled_thenLastDiscoveredNodesReturnedWithoutQuerying() {
+        ComputeServiceBuilder mockComputeServiceBuilder = mock(ComputeServiceBuilder.class);
+        doReturn(nodes).when(mockComputeServiceBuilder).getFilteredNodes();
         JCloudsDiscoveryStrategy jCloudsDiscoveryStrategy = new JCloudsDiscoveryStrategy(mockComputeServiceBuilder);
         jCloudsDiscoveryStrategy.discoverNodes();
+
+        HttpResponse response = HttpResponse.builder().statusCode(429).build();
+        doThrow(new HttpResponseException("Too Many Requests", null, response))
+                .when(mockComputeServiceBuilder).getFilteredNodes();
+        Iterable<DiscoveryNode> throttled = jCloudsDiscoveryStrategy.discoverNodes();
+        Iterable<DiscoveryNode> backingOff = jCloudsDiscoveryStrategy.discoverNodes();
+
+        assertEquals(addressesOfRunningInstances, privateAddresses(throttled));
+        assertEquals(addressesOfRunningInstances, privateAddresses(backingOff));
+        verify(mockComputeServiceBuilder, times(2)).getFilteredNodes();
+    }
+
+    private static Set<Address> privateAddresses(Iterable<DiscoveryNode> discoveryNodes) {
+        Set<Address> addresses = new HashSet<Address>();
+        for (DiscoveryNode node : discoveryNodes) {
+            addresses.add(node.getPrivateAddress());
+        }
+        return addresses;
     }
 }
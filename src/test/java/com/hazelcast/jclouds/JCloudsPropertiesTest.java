@@ -28,4 +28,19 @@ public class JCloudsPropertiesTest extends HazelcastTestSupport {
             fail("PortValueValidator should not throw ValidationException when configured in range values");
         }
     }
+
+    @Test(expected = ValidationException.class)
+    public void nonNegativeValueValidator_should_throw_ValidationException_when_configured_negative_value() {
+        new JCloudsProperties.NonNegativeValueValidator("cache-ttl-seconds").validate(-1);
+    }
+
+    @Test(expected = ValidationException.class)
+    public void positiveValueValidator_should_throw_ValidationException_when_configured_zero() {
+        new JCloudsProperties.PositiveValueValidator("fan-out-timeout-seconds").validate(0);
+    }
+
+    @Test
+    public void positiveValueValidator_should_not_throw_ValidationException_when_configured_one() {
+        new JCloudsProperties.PositiveValueValidator("fan-out-timeout-seconds").validate(1);
+    }
 }
@@ -0,0 +1,91 @@
+package com.hazelcast.jclouds;
+
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category(QuickTest.class)
+public class JsonFieldReaderTest extends HazelcastTestSupport {
+
+    @Test
+    public void testCompactDocument() throws IOException {
+        Map<String, String> fields = read("{\"AccessKeyId\":\"key\",\"Token\":\"token\",\"Expiration\":\"2015-09-07T03:19:56Z\"}");
+
+        assertEquals("key", fields.get("AccessKeyId"));
+        assertEquals("token", fields.get("Token"));
+        assertEquals("2015-09-07T03:19:56Z", fields.get("Expiration"));
+    }
+
+    @Test
+    public void testEscapes() throws IOException {
+        Map<String, String> fields = read("{ \"private_key\" : \"-----BEGIN-----\\nab\\/c\\\"d\\\\e\\u0041\\n\" }");
+
+        assertEquals("-----BEGIN-----\nab/c\"d\\eA\n", fields.get("private_key"));
+    }
+
+    @Test
+    public void testNonStringValuesAreSkipped() throws IOException {
+        Map<String, String> fields = read("{\"count\": 12, \"enabled\" : true, \"nested\": {\"a\": [1, \"}\", {\"b\": null}]},"
+                + " \"list\": [], \"name\": \"value\"}");
+
+        assertEquals(Collections.singletonMap("name", "value"), fields);
+    }
+
+    @Test
+    public void testOnlyRequestedFieldsAreRead() throws IOException {
+        Map<String, String> fields = JsonFieldReader.readStringFields(new StringReader("{\"a\": \"1\", \"b\": \"2\"}"),
+                Collections.singleton("b"));
+
+        assertEquals(1, fields.size());
+        assertEquals("2", fields.get("b"));
+    }
+
+    @Test
+    public void testEmptyObject() throws IOException {
+        assertTrue(read(" {} ").isEmpty());
+    }
+
+    @Test
+    public void testLongValueSpanningBuffers() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            sb.append((char) ('a' + i % 26));
+        }
+        Map<String, String> fields = read("{\"padding\": " + 12345 + ", \"long\": \"" + sb + "\"}");
+
+        assertEquals(sb.toString(), fields.get("long"));
+        assertFalse(fields.containsKey("padding"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotAnObject() throws IOException {
+        read("[\"a\"]");
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnterminatedString() throws IOException {
+        read("{\"a\": \"b");
+    }
+
+    @Test(expected = IOException.class)
+    public void testMissingSeparator() throws IOException {
+        read("{\"a\": \"b\" \"c\": \"d\"}");
+    }
+
+    private static Map<String, String> read(String json) throws IOException {
+        return JsonFieldReader.readStringFields(new StringReader(json), null);
+    }
+}
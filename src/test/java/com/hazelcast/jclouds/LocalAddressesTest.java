@@ -0,0 +1,45 @@
+package com.hazelcast.jclouds;
+
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.net.InetAddress;
+import java.util.Set;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category(QuickTest.class)
+public class LocalAddressesTest extends HazelcastTestSupport {
+
+    @Test
+    public void testPreferredAddressIsLocal() throws Exception {
+        LocalAddresses localAddresses = new LocalAddresses(60000);
+
+        InetAddress preferred = InetAddress.getByName(localAddresses.getPreferredHostAddress());
+
+        assertTrue(localAddresses.getAddresses().contains(preferred));
+    }
+
+    @Test
+    public void testInterfacesAreScannedOnceWithinRescanInterval() {
+        LocalAddresses localAddresses = new LocalAddresses(60000);
+
+        assertSame(localAddresses.getAddresses(), localAddresses.getAddresses());
+    }
+
+    @Test
+    public void testInterfacesAreRescannedAfterRescanInterval() {
+        LocalAddresses localAddresses = new LocalAddresses(0);
+
+        Set<InetAddress> first = localAddresses.getAddresses();
+
+        assertNotSame(first, localAddresses.getAddresses());
+    }
+}
@@ -0,0 +1,144 @@
+package com.hazelcast.jclouds;
+
+import com.google.common.base.Predicate;
+import com.hazelcast.core.HazelcastException;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.QuickTest;
+import org.jclouds.compute.ComputeService;
+import org.jclouds.compute.ComputeServiceContext;
+import org.jclouds.compute.domain.ComputeMetadata;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.NodeMetadataBuilder;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category(QuickTest.class)
+public class LocationFanOutTest extends HazelcastTestSupport {
+
+    private LocationFanOut fanOut;
+
+    @After
+    public void cleanup() {
+        if (fanOut != null) {
+            fanOut.shutdown();
+        }
+    }
+
+    @Test
+    public void testNodesOfAllLocationsAreMerged() {
+        Map<String, ComputeService> computeServices = new LinkedHashMap<String, ComputeService>();
+        computeServices.put("region1", computeServiceReturning(newNode("node1")));
+        computeServices.put("region2", computeServiceReturning(newNode("node2")));
+        fanOut = new LocationFanOut(computeServices, NodeLister.CLIENT_SIDE, 2, 10000);
+
+        AtomicInteger calls = new AtomicInteger();
+        Set<NodeMetadata> nodes = fanOut.listNodesDetailsMatching(null, calls);
+
+        assertEquals(2, nodes.size());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testFailingLocationIsSkipped() {
+        ComputeService failing = mockComputeService();
+        doThrow(new IllegalStateException("expected")).when(failing).listNodesDetailsMatching(any(Predicate.class));
+        Map<String, ComputeService> computeServices = new LinkedHashMap<String, ComputeService>();
+        computeServices.put("region1", failing);
+        computeServices.put("region2", computeServiceReturning(newNode("node2")));
+        fanOut = new LocationFanOut(computeServices, NodeLister.CLIENT_SIDE, 2, 10000);
+
+        Set<NodeMetadata> nodes = fanOut.listNodesDetailsMatching(null, new AtomicInteger());
+
+        assertEquals(1, nodes.size());
+        assertEquals("node2", nodes.iterator().next().getId());
+    }
+
+    @Test
+    public void testSlowLocationIsSkippedAfterTimeout() {
+        ComputeService slow = mockComputeService();
+        doAnswer(new Answer<Set<NodeMetadata>>() {
+            @Override
+            public Set<NodeMetadata> answer(InvocationOnMock invocation) throws Throwable {
+                Thread.sleep(10000);
+                return Collections.singleton(newNode("node1"));
+            }
+        }).when(slow).listNodesDetailsMatching(any(Predicate.class));
+        Map<String, ComputeService> computeServices = new LinkedHashMap<String, ComputeService>();
+        computeServices.put("region1", slow);
+        computeServices.put("region2", computeServiceReturning(newNode("node2")));
+        fanOut = new LocationFanOut(computeServices, NodeLister.CLIENT_SIDE, 2, 200);
+
+        Set<NodeMetadata> nodes = fanOut.listNodesDetailsMatching(null, new AtomicInteger());
+
+        assertEquals(1, nodes.size());
+        assertEquals("node2", nodes.iterator().next().getId());
+    }
+
+    @Test(expected = HazelcastException.class)
+    public void testFailsWhenNoLocationAnswers() {
+        ComputeService failing = mockComputeService();
+        doThrow(new IllegalStateException("expected")).when(failing).listNodesDetailsMatching(any(Predicate.class));
+        Map<String, ComputeService> computeServices = new LinkedHashMap<String, ComputeService>();
+        computeServices.put("region1", failing);
+        computeServices.put("region2", failing);
+        fanOut = new LocationFanOut(computeServices, NodeLister.CLIENT_SIDE, 1, 10000);
+
+        fanOut.listNodesDetailsMatching(null, new AtomicInteger());
+    }
+
+    @Test
+    public void testCloseContextsClosesAllContexts() {
+        ComputeService computeService1 = computeServiceReturning(newNode("node1"));
+        ComputeService computeService2 = computeServiceReturning(newNode("node2"));
+        Map<String, ComputeService> computeServices = new LinkedHashMap<String, ComputeService>();
+        computeServices.put("region1", computeService1);
+        computeServices.put("region2", computeService2);
+        LocationFanOut fanOut = new LocationFanOut(computeServices, NodeLister.CLIENT_SIDE, 2, 10000);
+
+        fanOut.shutdown();
+        fanOut.closeContexts();
+
+        verify(computeService1.getContext()).close();
+        verify(computeService2.getContext()).close();
+    }
+
+    private static ComputeService computeServiceReturning(NodeMetadata node) {
+        ComputeService computeService = mockComputeService();
+        doReturn(Collections.singleton(node)).when(computeService)
+                .listNodesDetailsMatching(any(Predicate.class));
+        return computeService;
+    }
+
+    private static ComputeService mockComputeService() {
+        ComputeService computeService = mock(ComputeService.class);
+        doReturn(mock(ComputeServiceContext.class)).when(computeService).getContext();
+        return computeService;
+    }
+
+    private static NodeMetadata newNode(String id) {
+        return new NodeMetadataBuilder()
+                .id(id)
+                .status(NodeMetadata.Status.RUNNING)
+                .build();
+    }
+}
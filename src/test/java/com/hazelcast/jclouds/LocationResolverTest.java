@@ -0,0 +1,56 @@
+package com.hazelcast.jclouds;
+
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.QuickTest;
+import org.jclouds.domain.Location;
+import org.jclouds.domain.LocationBuilder;
+import org.jclouds.domain.LocationScope;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category(QuickTest.class)
+public class LocationResolverTest extends HazelcastTestSupport {
+
+    private final LocationResolver locationResolver = new LocationResolver();
+
+    @Test
+    public void testZoneAndRegionAreResolvedFromHierarchy() {
+        Location region = new LocationBuilder().scope(LocationScope.REGION).id("us-east-1").description("desc").build();
+        Location zone = new LocationBuilder().scope(LocationScope.ZONE).id("us-east-1a").description("desc")
+                .parent(region).build();
+
+        assertEquals("us-east-1a", locationResolver.getZone(zone));
+        assertEquals("us-east-1", locationResolver.getRegion(zone));
+        assertNull(locationResolver.getZone(region));
+    }
+
+    @Test
+    public void testNullLocationHasNoZoneOrRegion() {
+        assertNull(locationResolver.getZone(null));
+        assertNull(locationResolver.getRegion(null));
+    }
+
+    @Test
+    public void testHierarchyIsWalkedOncePerLocation() {
+        Location zone = mock(Location.class);
+        doReturn(LocationScope.ZONE).when(zone).getScope();
+        doReturn("zone1").when(zone).getId();
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("zone1", locationResolver.getZone(zone));
+            assertNull(locationResolver.getRegion(zone));
+        }
+
+        verify(zone, times(1)).getParent();
+    }
+}
@@ -0,0 +1,170 @@
+package com.hazelcast.jclouds;
+
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.QuickTest;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category(QuickTest.class)
+public class MetadataClientTest extends HazelcastTestSupport {
+
+    private static final String PATH = "/latest/meta-data/placement/availability-zone";
+
+    private final AtomicInteger tokenRequests = new AtomicInteger();
+    private final AtomicInteger metadataRequests = new AtomicInteger();
+    private volatile int tokenStatus = 200;
+    private volatile String validToken = "token1";
+    private volatile int failuresBeforeSuccess;
+    private volatile boolean dropTokenRequests;
+    private HttpServer server;
+    private String endpoint;
+
+    @Before
+    public void setup() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext(MetadataClient.TOKEN_PATH, new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                tokenRequests.incrementAndGet();
+                if (dropTokenRequests) {
+                    // like a PUT response dropped by the hop limit
+                    exchange.close();
+                    return;
+                }
+                if (!"PUT".equals(exchange.getRequestMethod())
+                        || exchange.getRequestHeaders().getFirst(MetadataClient.TOKEN_TTL_HEADER) == null) {
+                    respond(exchange, 400, "");
+                    return;
+                }
+                respond(exchange, tokenStatus, validToken);
+            }
+        });
+        server.createContext(PATH, new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                int request = metadataRequests.incrementAndGet();
+                String token = exchange.getRequestHeaders().getFirst(MetadataClient.TOKEN_HEADER);
+                if (request <= failuresBeforeSuccess) {
+                    respond(exchange, 500, "failure");
+                } else if (tokenStatus == 200 && !validToken.equals(token)) {
+                    respond(exchange, 401, "");
+                } else {
+                    respond(exchange, 200, "us-east-1a\n");
+                }
+            }
+        });
+        server.start();
+        endpoint = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testSessionTokenIsRequestedOnceAndReused() throws IOException {
+        MetadataClient client = MetadataClient.forEc2(endpoint);
+
+        assertEquals("us-east-1a", client.get(PATH));
+        assertEquals("us-east-1a", client.get(PATH));
+
+        assertEquals(1, tokenRequests.get());
+    }
+
+    @Test
+    public void testRejectedSessionTokenIsRenewed() throws IOException {
+        MetadataClient client = MetadataClient.forEc2(endpoint);
+        client.get(PATH);
+        validToken = "token2";
+
+        assertEquals("us-east-1a", client.get(PATH));
+        assertEquals(2, tokenRequests.get());
+    }
+
+    @Test
+    public void testFallsBackToImdsV1WhenTokensAreUnsupported() throws IOException {
+        tokenStatus = 405;
+        MetadataClient client = MetadataClient.forEc2(endpoint);
+
+        assertEquals("us-east-1a", client.get(PATH));
+        assertEquals("us-east-1a", client.get(PATH));
+        assertEquals(1, tokenRequests.get());
+    }
+
+    @Test
+    public void testFallsBackToImdsV1WhenTokenRequestFails() throws IOException {
+        tokenStatus = 405;
+        dropTokenRequests = true;
+        MetadataClient client = MetadataClient.forEc2(endpoint);
+
+        assertEquals("us-east-1a", client.get(PATH));
+        int tokenRequestsAfterFallback = tokenRequests.get();
+        assertEquals("us-east-1a", client.get(PATH));
+
+        // the JDK may resend the dropped request once, the token is not requested again afterwards
+        assertEquals(tokenRequestsAfterFallback, tokenRequests.get());
+        assertEquals(2, metadataRequests.get());
+    }
+
+    @Test
+    public void testServerErrorsAreRetried() throws IOException {
+        failuresBeforeSuccess = 2;
+        MetadataClient client = new MetadataClient(endpoint, Collections.<String, String>emptyMap(), true, 1000, 3);
+
+        assertEquals("us-east-1a", client.get(PATH));
+        assertEquals(3, metadataRequests.get());
+    }
+
+    @Test
+    public void testRetriesAreBounded() {
+        failuresBeforeSuccess = 5;
+        MetadataClient client = new MetadataClient(endpoint, Collections.<String, String>emptyMap(), true, 1000, 2);
+
+        try {
+            client.get(PATH);
+            fail();
+        } catch (IOException expected) {
+            assertEquals(2, metadataRequests.get());
+        }
+    }
+
+    @Test
+    public void testMissingPathIsNotRetried() {
+        MetadataClient client = MetadataClient.forEc2(endpoint);
+
+        try {
+            client.get("/latest/meta-data/missing");
+            fail();
+        } catch (MetadataClient.HttpStatusException expected) {
+            assertEquals(404, expected.getStatus());
+        } catch (IOException e) {
+            fail(e.toString());
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes("UTF-8");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(bytes);
+        out.close();
+    }
+}
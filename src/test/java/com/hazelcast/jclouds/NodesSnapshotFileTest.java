@@ -0,0 +1,129 @@
+package com.hazelcast.jclouds;
+
+import com.hazelcast.nio.Address;
+import com.hazelcast.spi.discovery.DiscoveryNode;
+import com.hazelcast.spi.discovery.SimpleDiscoveryNode;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category(QuickTest.class)
+public class NodesSnapshotFileTest extends HazelcastTestSupport {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+    private List<DiscoveryNode> nodes;
+
+    @Before
+    public void setUp() throws IOException {
+        file = new File(folder.getRoot(), "snapshot/nodes.bin");
+        nodes = new ArrayList<DiscoveryNode>();
+        nodes.add(new SimpleDiscoveryNode(new Address("10.0.0.1", 5701), new Address("54.1.2.3", 5701)));
+        nodes.add(new SimpleDiscoveryNode(new Address("10.0.0.2", 5702), (Address) null));
+        nodes.add(new SimpleDiscoveryNode(new Address(InetAddress.getByName("fd00::1"), 65535),
+                new Address(InetAddress.getByName("2001:db8::1"), 5701)));
+    }
+
+    @Test
+    public void whenWritten_thenLoadedByNewInstance() {
+        new NodesSnapshotFile(file).write(nodes);
+
+        List<DiscoveryNode> loaded = new NodesSnapshotFile(file).load();
+
+        assertEquals(nodes.size(), loaded.size());
+        for (int i = 0; i < nodes.size(); i++) {
+            assertEquals(nodes.get(i).getPrivateAddress(), loaded.get(i).getPrivateAddress());
+            assertEquals(nodes.get(i).getPublicAddress(), loaded.get(i).getPublicAddress());
+        }
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+    }
+
+    @Test
+    public void whenRewritten_thenReplaced() {
+        NodesSnapshotFile snapshotFile = new NodesSnapshotFile(file);
+        snapshotFile.write(nodes);
+        snapshotFile.write(nodes.subList(0, 1));
+
+        assertEquals(1, new NodesSnapshotFile(file).load().size());
+    }
+
+    @Test
+    public void whenUnchanged_thenNotRewritten() {
+        NodesSnapshotFile snapshotFile = new NodesSnapshotFile(file);
+        snapshotFile.write(nodes);
+        assertTrue(file.delete());
+
+        snapshotFile.write(new ArrayList<DiscoveryNode>(nodes));
+
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void whenMissing_thenNothingLoaded() {
+        assertNull(new NodesSnapshotFile(file).load());
+    }
+
+    @Test
+    public void whenCorrupted_thenNothingLoaded() throws IOException {
+        new NodesSnapshotFile(file).write(nodes);
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.seek(12);
+            int b = raf.read();
+            raf.seek(12);
+            raf.write(b ^ 1);
+        } finally {
+            raf.close();
+        }
+
+        assertNull(new NodesSnapshotFile(file).load());
+    }
+
+    @Test
+    public void whenTruncated_thenNothingLoaded() throws IOException {
+        new NodesSnapshotFile(file).write(nodes);
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(raf.length() - 3);
+        } finally {
+            raf.close();
+        }
+
+        assertNull(new NodesSnapshotFile(file).load());
+    }
+
+    @Test
+    public void whenNotASnapshot_thenNothingLoaded() throws IOException {
+        assertTrue(file.getParentFile().mkdirs());
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write("10.0.0.1:5701".getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+
+        assertNull(new NodesSnapshotFile(file).load());
+    }
+}
@@ -0,0 +1,121 @@
+package com.hazelcast.jclouds;
+
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category(QuickTest.class)
+public class SingleFlightTest extends HazelcastTestSupport {
+
+    private static final int CALLERS = 8;
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Test
+    public void whenCalledConcurrently_thenCallRunsOnceAndResultShared() throws Exception {
+        final Object result = new Object();
+        final SingleFlight<Object> singleFlight = new SingleFlight<Object>(blockingCall(result, null));
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<Object>> futures = submitCallers(executor, singleFlight);
+            release.countDown();
+
+            for (Future<Object> future : futures) {
+                assertSame(result, future.get(ASSERT_TRUE_EVENTUALLY_TIMEOUT, TimeUnit.SECONDS));
+            }
+            assertEquals(1, calls.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void whenCallFails_thenAllCallersFail() throws Exception {
+        final IllegalStateException failure = new IllegalStateException("expected");
+        final SingleFlight<Object> singleFlight = new SingleFlight<Object>(blockingCall(null, failure));
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<Object>> futures = submitCallers(executor, singleFlight);
+            release.countDown();
+
+            for (Future<Object> future : futures) {
+                try {
+                    future.get(ASSERT_TRUE_EVENTUALLY_TIMEOUT, TimeUnit.SECONDS);
+                    fail();
+                } catch (ExecutionException e) {
+                    assertSame(failure, e.getCause());
+                }
+            }
+            assertEquals(1, calls.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void whenPreviousCallCompleted_thenCallRunsAgain() {
+        SingleFlight<Integer> singleFlight = new SingleFlight<Integer>(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return calls.incrementAndGet();
+            }
+        });
+
+        assertEquals(1, (int) singleFlight.execute());
+        assertEquals(2, (int) singleFlight.execute());
+    }
+
+    private Callable<Object> blockingCall(final Object result, final RuntimeException failure) {
+        return new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                calls.incrementAndGet();
+                started.countDown();
+                release.await();
+                if (failure != null) {
+                    throw failure;
+                }
+                return result;
+            }
+        };
+    }
+
+    private List<Future<Object>> submitCallers(ExecutorService executor, final SingleFlight<Object> singleFlight)
+            throws InterruptedException {
+        List<Future<Object>> futures = new ArrayList<Future<Object>>();
+        for (int i = 0; i < CALLERS; i++) {
+            futures.add(executor.submit(new Callable<Object>() {
+                @Override
+                public Object call() {
+                    return singleFlight.execute();
+                }
+            }));
+        }
+        assertTrue(started.await(ASSERT_TRUE_EVENTUALLY_TIMEOUT, TimeUnit.SECONDS));
+        // give the other callers time to join the running call
+        sleepMillis(200);
+        return futures;
+    }
+}
@@ -0,0 +1,78 @@
+package com.hazelcast.jclouds;
+
+import com.hazelcast.core.HazelcastException;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.QuickTest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.HttpResponseException;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category(QuickTest.class)
+public class ThrottlingBackoffTest extends HazelcastTestSupport {
+
+    @Test
+    public void whenStatus429_thenThrottling() {
+        assertTrue(ThrottlingBackoff.isThrottling(responseException(429, null)));
+    }
+
+    @Test
+    public void whenEc2RequestLimitExceeded_thenThrottling() {
+        String content = "<Response><Errors><Error><Code>RequestLimitExceeded</Code>"
+                + "<Message>Request limit exceeded.</Message></Error></Errors></Response>";
+
+        assertTrue(ThrottlingBackoff.isThrottling(responseException(503, content)));
+    }
+
+    @Test
+    public void whenGceRateLimitExceededCause_thenThrottling() {
+        String content = "{\"error\":{\"errors\":[{\"reason\":\"rateLimitExceeded\"}],\"code\":403}}";
+        Exception e = new HazelcastException(new ExecutionException(responseException(403, content)));
+
+        assertTrue(ThrottlingBackoff.isThrottling(e));
+    }
+
+    @Test
+    public void whenOtherFailure_thenNotThrottling() {
+        assertFalse(ThrottlingBackoff.isThrottling(responseException(500, "Internal Error")));
+        assertFalse(ThrottlingBackoff.isThrottling(new IllegalStateException("no nodes")));
+    }
+
+    @Test
+    public void whenThrottledRepeatedly_thenDelaysStayBetweenBaseAndCap() {
+        ThrottlingBackoff backoff = new ThrottlingBackoff(100, 1000, new Random(1));
+        long previous = 0;
+        for (int i = 0; i < 50; i++) {
+            long delay = backoff.onThrottled();
+            assertTrue(delay >= 100 && delay <= 1000);
+            assertTrue(delay <= Math.max(100, previous) * 3);
+            previous = delay;
+        }
+        assertTrue(backoff.remainingMillis() > 0);
+    }
+
+    @Test
+    public void whenSucceeded_thenBackoffEnds() {
+        ThrottlingBackoff backoff = new ThrottlingBackoff(60000, 120000);
+        backoff.onThrottled();
+
+        backoff.onSuccess();
+
+        assertEquals(0, backoff.remainingMillis());
+    }
+
+    private static HttpResponseException responseException(int status, String content) {
+        HttpResponse response = HttpResponse.builder().statusCode(status).build();
+        return new HttpResponseException("request failed", null, response, content);
+    }
+}
@@ -0,0 +1,234 @@
+package com.hazelcast.jclouds.fake;
+
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.NodeMetadataBuilder;
+import org.jclouds.domain.Location;
+import org.jclouds.domain.LocationBuilder;
+import org.jclouds.domain.LocationScope;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Programmable in-memory cloud served by the {@code fake-cloud} jclouds provider. Each fake cloud is registered
+ * under an endpoint, a compute service built with provider {@code fake-cloud} and that endpoint lists its
+ * nodes. Listing is paged, every page costs one simulated request with the configured latency.
+ */
+public final class FakeCloud {
+
+    public static final String PROVIDER = "fake-cloud";
+
+    private static final ConcurrentMap<String, FakeCloud> CLOUDS = new ConcurrentHashMap<String, FakeCloud>();
+    private static final int OCTET = 256;
+
+    private final String endpoint;
+    private final Location provider;
+    private final Map<String, Location> locations = new LinkedHashMap<String, Location>();
+    private final List<NodeMetadata> nodes = new CopyOnWriteArrayList<NodeMetadata>();
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private volatile long latencyMillis;
+    private volatile int pageSize = Integer.MAX_VALUE;
+
+    private FakeCloud(String endpoint) {
+        this.endpoint = endpoint;
+        this.provider = new LocationBuilder().scope(LocationScope.PROVIDER).id(PROVIDER).description(PROVIDER).build();
+    }
+
+    /**
+     * Registers a new empty fake cloud, replacing any fake cloud registered under the same endpoint.
+     *
+     * @param endpoint the endpoint to configure on the compute service
+     * @return the fake cloud
+     */
+    public static FakeCloud register(String endpoint) {
+        FakeCloud cloud = new FakeCloud(endpoint);
+        CLOUDS.put(endpoint, cloud);
+        return cloud;
+    }
+
+    public static void unregister(String endpoint) {
+        CLOUDS.remove(endpoint);
+    }
+
+    static FakeCloud get(String endpoint) {
+        FakeCloud cloud = CLOUDS.get(endpoint);
+        if (cloud == null) {
+            throw new IllegalStateException("No fake cloud registered for endpoint " + endpoint);
+        }
+        return cloud;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public synchronized Location region(String id) {
+        return location(id, LocationScope.REGION, provider);
+    }
+
+    public synchronized Location zone(String regionId, String id) {
+        return location(id, LocationScope.ZONE, region(regionId));
+    }
+
+    private Location location(String id, LocationScope scope, Location parent) {
+        Location location = locations.get(id);
+        if (location == null) {
+            location = new LocationBuilder().scope(scope).id(id).description(id).parent(parent).build();
+            locations.put(id, location);
+        }
+        return location;
+    }
+
+    public FakeCloud addNode(NodeMetadata node) {
+        nodes.add(node);
+        return this;
+    }
+
+    /**
+     * Adds running nodes with consecutive private addresses in {@code 10.0.0.0/8} and public addresses
+     * in {@code 54.0.0.0/8}.
+     *
+     * @param count number of nodes to add
+     * @param group the group of the nodes
+     * @param tags  the user metadata of the nodes
+     * @param zone  the location of the nodes
+     * @return this fake cloud
+     */
+    public FakeCloud addNodes(int count, String group, Map<String, String> tags, Location zone) {
+        return addNodes(count, group, tags, zone, NodeMetadata.Status.RUNNING);
+    }
+
+    public FakeCloud addNodes(int count, String group, Map<String, String> tags, Location zone,
+                              NodeMetadata.Status status) {
+        List<NodeMetadata> added = new ArrayList<NodeMetadata>(count);
+        for (int i = 0; i < count; i++) {
+            int index = nodes.size() + i;
+            String suffix = (index / OCTET / OCTET % OCTET) + "." + (index / OCTET % OCTET) + "." + (index % OCTET);
+            added.add(new NodeMetadataBuilder()
+                    .id(zone.getId() + "/node-" + index)
+                    .providerId("node-" + index)
+                    .group(group)
+                    .hostname("node-" + index)
+                    .location(zone)
+                    .userMetadata(tags)
+                    .privateAddresses(Collections.singleton("10." + suffix))
+                    .publicAddresses(Collections.singleton("54." + suffix))
+                    .status(status)
+                    .build());
+        }
+        nodes.addAll(added);
+        return this;
+    }
+
+    public void clear() {
+        nodes.clear();
+    }
+
+    public FakeCloud setLatency(long latency, TimeUnit unit) {
+        this.latencyMillis = unit.toMillis(latency);
+        return this;
+    }
+
+    public FakeCloud setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+        return this;
+    }
+
+    /**
+     * @return number of simulated requests, one per listed page or node lookup
+     */
+    public int getRequestCount() {
+        return requests.get();
+    }
+
+    List<NodeMetadata> getNodes() {
+        return nodes;
+    }
+
+    synchronized List<Location> getLocations() {
+        List<Location> result = new ArrayList<Location>(locations.values());
+        result.add(0, provider);
+        return result;
+    }
+
+    /**
+     * @return the nodes, fetched lazily page by page while iterating
+     */
+    Iterable<NodeMetadata> listNodes() {
+        final List<NodeMetadata> snapshot = new ArrayList<NodeMetadata>(nodes);
+        final int size = pageSize;
+        return new Iterable<NodeMetadata>() {
+            @Override
+            public Iterator<NodeMetadata> iterator() {
+                return new PagingIterator(snapshot, size);
+            }
+        };
+    }
+
+    void request() {
+        requests.incrementAndGet();
+        if (latencyMillis > 0) {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Iterates over a snapshot of nodes, fetching the next page when the current one is exhausted.
+     */
+    private final class PagingIterator implements Iterator<NodeMetadata> {
+
+        private final List<NodeMetadata> snapshot;
+        private final int pageSize;
+        private int fetched;
+        private int position;
+        private boolean requested;
+
+        PagingIterator(List<NodeMetadata> snapshot, int pageSize) {
+            this.snapshot = snapshot;
+            this.pageSize = pageSize;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (position < fetched) {
+                return true;
+            }
+            if (requested && fetched >= snapshot.size()) {
+                return false;
+            }
+            // the first page is requested even if the fleet is empty
+            request();
+            requested = true;
+            fetched = (int) Math.min((long) fetched + pageSize, snapshot.size());
+            return position < fetched;
+        }
+
+        @Override
+        public NodeMetadata next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return snapshot.get(position++);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.hazelcast.jclouds.fake;
+
+import org.jclouds.apis.internal.BaseApiMetadata;
+import org.jclouds.compute.ComputeServiceContext;
+
+import java.net.URI;
+
+/**
+ * jclouds API metadata of the {@code fake-cloud} provider, registered through
+ * {@code META-INF/services/org.jclouds.apis.ApiMetadata}.
+ */
+public class FakeCloudApiMetadata extends BaseApiMetadata {
+
+    public FakeCloudApiMetadata() {
+        this(new Builder());
+    }
+
+    protected FakeCloudApiMetadata(Builder builder) {
+        super(builder);
+    }
+
+    @Override
+    public Builder toBuilder() {
+        return new Builder().fromApiMetadata(this);
+    }
+
+    public static class Builder extends BaseApiMetadata.Builder<Builder> {
+
+        protected Builder() {
+            id(FakeCloud.PROVIDER)
+                    .name("in-memory fake cloud")
+                    .identityName("Unused")
+                    .defaultIdentity(FakeCloud.PROVIDER)
+                    .defaultCredential(FakeCloud.PROVIDER)
+                    .defaultEndpoint("http://" + FakeCloud.PROVIDER)
+                    .documentation(URI.create("https://github.com/hazelcast/hazelcast-jclouds"))
+                    .view(ComputeServiceContext.class)
+                    .defaultModule(FakeCloudContextModule.class);
+        }
+
+        @Override
+        public FakeCloudApiMetadata build() {
+            return new FakeCloudApiMetadata(this);
+        }
+
+        @Override
+        protected Builder self() {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.hazelcast.jclouds.fake;
+
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableSet;
+import org.jclouds.compute.JCloudsNativeComputeServiceAdapter;
+import org.jclouds.compute.domain.Hardware;
+import org.jclouds.compute.domain.Image;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.Template;
+import org.jclouds.domain.Location;
+import org.jclouds.location.Provider;
+
+import javax.inject.Inject;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Serves the nodes and locations of the {@link FakeCloud} registered under the configured endpoint.
+ * The fleet is read only, nodes cannot be created or modified through the compute service.
+ */
+public class FakeCloudComputeServiceAdapter implements JCloudsNativeComputeServiceAdapter {
+
+    private final FakeCloud cloud;
+
+    @Inject
+    public FakeCloudComputeServiceAdapter(@Provider Supplier<URI> endpoint) {
+        this.cloud = FakeCloud.get(endpoint.get().toString());
+    }
+
+    @Override
+    public Iterable<NodeMetadata> listNodes() {
+        return cloud.listNodes();
+    }
+
+    @Override
+    public Iterable<NodeMetadata> listNodesByIds(Iterable<String> ids) {
+        cloud.request();
+        Set<String> wanted = ImmutableSet.copyOf(ids);
+        List<NodeMetadata> result = new ArrayList<NodeMetadata>();
+        for (NodeMetadata node : cloud.getNodes()) {
+            if (wanted.contains(node.getId())) {
+                result.add(node);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public NodeMetadata getNode(String id) {
+        cloud.request();
+        for (NodeMetadata node : cloud.getNodes()) {
+            if (node.getId().equals(id)) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Iterable<Location> listLocations() {
+        return cloud.getLocations();
+    }
+
+    @Override
+    public Iterable<Image> listImages() {
+        return new HashSet<Image>();
+    }
+
+    @Override
+    public Image getImage(String id) {
+        return null;
+    }
+
+    @Override
+    public Iterable<Hardware> listHardwareProfiles() {
+        return new HashSet<Hardware>();
+    }
+
+    @Override
+    public NodeWithInitialCredentials createNodeWithGroupEncodedIntoName(String group, String name, Template template) {
+        throw new UnsupportedOperationException("The fake cloud fleet is read only");
+    }
+
+    @Override
+    public void destroyNode(String id) {
+        throw new UnsupportedOperationException("The fake cloud fleet is read only");
+    }
+
+    @Override
+    public void rebootNode(String id) {
+        throw new UnsupportedOperationException("The fake cloud fleet is read only");
+    }
+
+    @Override
+    public void resumeNode(String id) {
+        throw new UnsupportedOperationException("The fake cloud fleet is read only");
+    }
+
+    @Override
+    public void suspendNode(String id) {
+        throw new UnsupportedOperationException("The fake cloud fleet is read only");
+    }
+}
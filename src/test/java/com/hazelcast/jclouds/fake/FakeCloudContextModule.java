@@ -0,0 +1,13 @@
+package com.hazelcast.jclouds.fake;
+
+import org.jclouds.compute.config.JCloudsNativeComputeServiceAdapterContextModule;
+
+/**
+ * Binds the compute service of the {@code fake-cloud} provider to {@link FakeCloudComputeServiceAdapter}.
+ */
+public class FakeCloudContextModule extends JCloudsNativeComputeServiceAdapterContextModule {
+
+    public FakeCloudContextModule() {
+        super(FakeCloudComputeServiceAdapter.class);
+    }
+}
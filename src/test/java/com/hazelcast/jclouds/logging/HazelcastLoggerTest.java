@@ -0,0 +1,76 @@
+package com.hazelcast.jclouds.logging;
+
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.test.AssertTask;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.logging.Level;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category(QuickTest.class)
+public class HazelcastLoggerTest extends HazelcastTestSupport {
+
+    @Test
+    public void testDisabledLevelIsNotFormatted() {
+        ILogger logger = mock(ILogger.class);
+        doReturn(false).when(logger).isLoggable(Level.FINEST);
+        Object argument = mock(Object.class);
+        HazelcastLogger hazelcastLogger = new HazelcastLogger("category", logger);
+
+        hazelcastLogger.trace("request %s", argument);
+
+        verify(logger, never()).log(any(Level.class), anyString());
+    }
+
+    @Test
+    public void testEnabledLevelIsFormatted() {
+        ILogger logger = mock(ILogger.class);
+        doReturn(true).when(logger).isLoggable(Level.WARNING);
+        Throwable throwable = new RuntimeException();
+        HazelcastLogger hazelcastLogger = new HazelcastLogger("category", logger);
+
+        hazelcastLogger.info("ignored %s", "value");
+        hazelcastLogger.warn(throwable, "%s >> %s", "request", 42);
+
+        verify(logger, never()).log(any(Level.class), anyString());
+        verify(logger).log(Level.WARNING, "request >> 42", throwable);
+    }
+
+    @Test
+    public void testFormat() {
+        assertEquals("a 1 b null 100%", HazelcastLogger.format("a %s b %s 100%%", 1, null));
+        assertEquals("plain", HazelcastLogger.format("plain"));
+        assertEquals(String.format("%d items%n", 3), HazelcastLogger.format("%d items%n", 3));
+        assertEquals(String.format("%-5s|", "ab"), HazelcastLogger.format("%-5s|", "ab"));
+        assertEquals(String.format("%s %s", "a", "b"), HazelcastLogger.format("%s %s", "a", "b"));
+    }
+
+    @Test
+    public void testAsyncHandOff() {
+        final ILogger logger = mock(ILogger.class);
+        doReturn(true).when(logger).isLoggable(Level.INFO);
+        HazelcastLogger hazelcastLogger = new HazelcastLogger("category", logger, new AsyncLogHandOff(16));
+
+        hazelcastLogger.info("message %s", 1);
+
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() {
+                verify(logger).log(Level.INFO, "message 1");
+            }
+        });
+    }
+}